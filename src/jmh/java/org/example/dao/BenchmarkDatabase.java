@@ -0,0 +1,67 @@
+package org.example.dao;
+
+import org.example.db.ConnectionPool;
+import org.example.db.PooledConnectionProvider;
+import org.example.model.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// Отдельная БД для бенчмарков (схема пересоздаётся!). Параметры: -Dbench.jdbc.url, -Dbench.jdbc.user, -Dbench.jdbc.password
+final class BenchmarkDatabase implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final SessionFactory sessionFactory;
+
+    private BenchmarkDatabase(ConnectionPool pool, SessionFactory sessionFactory) {
+        this.pool = pool;
+        this.sessionFactory = sessionFactory;
+    }
+
+    static BenchmarkDatabase open() {
+        Properties props = new Properties();
+        props.setProperty("hibernate.connection.url", System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/users_bench?reWriteBatchedInserts=true"));
+        props.setProperty("hibernate.connection.username", System.getProperty("bench.jdbc.user", "postgres"));
+        props.setProperty("hibernate.connection.password", System.getProperty("bench.jdbc.password", "postgres"));
+        ConnectionPool pool = ConnectionPool.fromProperties(props);
+        Configuration configuration = new Configuration().addAnnotatedClass(User.class);
+        configuration.setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.PostgreSQLDialect");
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+        configuration.setProperty(AvailableSettings.SHOW_SQL, "false");
+        configuration.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50");
+        configuration.getProperties().put(AvailableSettings.CONNECTION_PROVIDER, new PooledConnectionProvider(pool));
+        return new BenchmarkDatabase(pool, configuration.buildSessionFactory());
+    }
+
+    SessionFactory sessionFactory() {
+        return sessionFactory;
+    }
+
+    // очищает таблицу и вставляет rows пользователей; возвращает их id
+    int[] seed(int rows) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createQuery("DELETE FROM User").executeUpdate();
+            session.getTransaction().commit();
+        }
+        List<User> users = new ArrayList<>(rows);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < rows; i++) {
+            users.add(new User("User" + i, "seed" + i + "@bench.test", i % 100, now));
+        }
+        new UserDaoImpl(sessionFactory).createAll(users);
+        return users.stream().mapToInt(User::getId).toArray();
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+        pool.close();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// InMemoryUserDao под конкурентной нагрузкой: те же операции, что в UserDaoBenchmark, без БД
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class InMemoryUserDaoBenchmark {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Param({"100000"})
+    public int tableSize;
+
+    private InMemoryUserDao userDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userDao = new InMemoryUserDao();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < tableSize; i++) userDao.create(new User("User" + i, "user" + i + "@bench.test", i % 100, now));
+    }
+
+    @Benchmark
+    public User create() {
+        User user = new User("Bench", "create" + SEQUENCE.incrementAndGet() + "@bench.test", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(user);
+        return user;
+    }
+
+    @Benchmark
+    public User findById() {
+        return userDao.findById(randomId());
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        return userDao.findByEmail("user" + (randomId() - 1) + "@bench.test");
+    }
+
+    @Benchmark
+    public List<User> findPage() {
+        return userDao.findPage(randomId(), 100);
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(tableSize);
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.example.model.UserView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Операции UserDaoImpl против реального PostgreSQL при разном размере таблицы
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDaoBenchmark {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private BenchmarkDatabase database;
+    private UserDao userDao;
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.open();
+        userDao = new UserDaoImpl(database.sessionFactory());
+        ids = database.seed(tableSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public User create() {
+        User user = new User("Bench", "create" + SEQUENCE.incrementAndGet() + "@bench.test", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(user);
+        return user;
+    }
+
+    @Benchmark
+    public User findById() {
+        return userDao.findById(randomId());
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDao.findAll();
+    }
+
+    @Benchmark
+    public List<User> findPage() {
+        return userDao.findPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public UserView findViewById() {
+        return userDao.findViewById(randomId());
+    }
+
+    @Benchmark
+    public List<UserView> findViewPage() {
+        return userDao.findViewPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public User update() {
+        return userDao.updateFields(randomId(), null, null, null, ThreadLocalRandom.current().nextInt(0, 151));
+    }
+
+    @Benchmark
+    public User delete(DeleteState state) {
+        return userDao.deleteById(state.id);
+    }
+
+    private int randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    // перед каждым вызовом delete вставляется отдельная строка, чтобы не сокращать основной набор
+    @State(Scope.Thread)
+    public static class DeleteState {
+        int id;
+
+        @Setup(Level.Invocation)
+        public void insertRow(UserDaoBenchmark benchmark) {
+            User user = new User("Victim", "delete" + SEQUENCE.incrementAndGet() + "@bench.test", 30, OffsetDateTime.now(ZoneOffset.UTC));
+            benchmark.userDao.create(user);
+            id = user.getId();
+        }
+    }
+}
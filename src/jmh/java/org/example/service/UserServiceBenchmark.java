@@ -0,0 +1,76 @@
+package org.example.service;
+
+import org.example.dao.ForwardingUserDao;
+import org.example.model.User;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+// Сервисный слой без БД: валидация и create() с DAO-заглушкой
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+    private ValidatorFactory validatorFactory;
+    private UserServiceImpl userService;
+    private User validUser;
+    private User invalidUser;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        userService = new UserServiceImpl(new ForwardingUserDao(null) {
+            @Override
+            public void create(User user) {
+            }
+        }, validatorFactory.getValidator());
+        validUser = new User("Alice", "alice@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        invalidUser = new User("A", "not-an-email", 200, OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public void validateValid() {
+        userService.validate(validUser);
+    }
+
+    @Benchmark
+    public Object validateInvalid() {
+        try {
+            userService.validate(invalidUser);
+            return null;
+        } catch (IllegalArgumentException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public User createWithoutDatabase() {
+        return userService.create("Alice", "alice@test.com", 30);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.validation;
+
+import org.example.model.User;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Пакет пользователей (1% невалидных): Validator.validate по одному против UserBatchValidator
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBatchValidatorBenchmark {
+    @Param({"100000"})
+    public int batchSize;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private UserBatchValidator batchValidator;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        validator = validatorFactory.getValidator();
+        batchValidator = new UserBatchValidator(validator);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        users = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            users.add(i % 100 == 0
+                    ? new User("U", "bad-email-" + i, 30, now)
+                    : new User("User" + i, "user" + i + "@bench.test", i % 100, now));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public int validatorOneByOne() {
+        int invalid = 0;
+        for (User user : users) {
+            Set<ConstraintViolation<User>> violations = validator.validate(user);
+            if (!violations.isEmpty()) invalid++;
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public ValidationReport batchValidator() {
+        return batchValidator.validate(users);
+    }
+}
@@ -0,0 +1,132 @@
+package org.example;
+
+import org.example.cache.CachingUserDao;
+import org.example.cache.LruUserCache;
+import org.example.dao.CoalescingUserDao;
+import org.example.dao.ReadWriteRoutingUserDao;
+import org.example.dao.UserDao;
+import org.example.dao.UserDaoImpl;
+import org.example.metrics.InstrumentedUserDao;
+import org.example.metrics.InstrumentedUserService;
+import org.example.metrics.MetricsHttpServer;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.MetricsReport;
+import org.example.service.RetryPolicy;
+import org.example.service.UserService;
+import org.example.service.UserServiceImpl;
+import org.example.service.WriteBehindUserService;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.db.ConnectionPool.intSetting;
+
+// Сборка DAO и сервисов поверх готовых фабрик: (опционально) чтение с реплики -> (опционально) объединение findById
+// -> кэш -> метрики -> сервис -> (опционально) отложенная запись
+class AppContext implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AppContext.class);
+    private final UserService userService;
+    private final MetricsReport report;
+    private final MetricsHttpServer metricsServer;
+    private final WriteBehindUserService writeBehind;
+    private final CoalescingUserDao coalescing;
+
+    AppContext(Bootstrap bootstrap, Properties props) {
+        SessionFactory sf = bootstrap.sessionFactory();
+        Validator validator = bootstrap.validatorFactory().getValidator();
+        MetricsRegistry metrics = new MetricsRegistry(Duration.ofMillis(intSetting(props, "app.metrics.slow_threshold_ms", 200)));
+        UserDao primary = new UserDaoImpl(sf);
+        SessionFactory replicaSf = bootstrap.replicaSessionFactory();
+        ReadWriteRoutingUserDao routing = replicaSf == null ? null : withReplica(primary, new UserDaoImpl(replicaSf), props);
+        UserDao base = routing != null ? routing : primary;
+        coalescing = withCoalescing(base, props);
+        UserDao cached = withCache(coalescing != null ? coalescing : base, props);
+        UserDao dao = new InstrumentedUserDao(cached, metrics);
+        UserServiceImpl core = new UserServiceImpl(dao, validator, retryPolicy(props));
+        UserService service = new InstrumentedUserService(core, metrics);
+        report = new MetricsReport(metrics, sf.getStatistics()).section("Пул соединений", bootstrap.pool()::stats);
+        if (routing != null) {
+            report.section("Пул соединений реплики", bootstrap.replicaPool()::stats)
+                    .section("Маршрутизация чтения", routing::stats);
+        }
+        if (cached instanceof CachingUserDao) report.section("Кэш пользователей", ((CachingUserDao) cached)::stats);
+        if (coalescing != null) report.section("Объединение findById", coalescing::stats);
+        report.section("Конфликты версий", core::contentionStats);
+        metricsServer = startMetricsServer(report, props);
+        writeBehind = withWriteBehind(service, dao, validator, props);
+        userService = writeBehind != null ? writeBehind : service;
+    }
+
+    UserService userService() {
+        return userService;
+    }
+
+    MetricsReport report() {
+        return report;
+    }
+
+    // close() отложенной записи дописывает принятые, но ещё не зафиксированные create
+    @Override
+    public void close() {
+        if (writeBehind != null) writeBehind.close();
+        if (coalescing != null) coalescing.close();
+        if (metricsServer != null) metricsServer.close();
+        log.info("Итоговые метрики:\n{}", report.render());
+    }
+
+    private static UserDao withCache(UserDao dao, Properties props) {
+        if (!Boolean.parseBoolean(props.getProperty("app.cache.enabled", "true"))) return dao;
+        int maxSize = intSetting(props, "app.cache.max_size", 10_000);
+        Duration ttl = Duration.ofSeconds(intSetting(props, "app.cache.ttl_seconds", 300));
+        log.info("Кэш пользователей включён: maxSize={}, ttl={}", maxSize, ttl);
+        return new CachingUserDao(dao, new LruUserCache(maxSize, ttl));
+    }
+
+    private static ReadWriteRoutingUserDao withReplica(UserDao primary, UserDaoImpl replica, Properties props) {
+        return new ReadWriteRoutingUserDao(primary, replica, replica::ping,
+                Duration.ofMillis(intSetting(props, "app.replica.read_your_writes_ms", 1_000)),
+                Duration.ofMillis(intSetting(props, "app.replica.recheck_ms", 5_000)));
+    }
+
+    // промахи кэша по горячим id объединяются, попадания до ожидания не доходят
+    private static CoalescingUserDao withCoalescing(UserDao dao, Properties props) {
+        if (!Boolean.parseBoolean(props.getProperty("app.coalescing.enabled", "false"))) return null;
+        return new CoalescingUserDao(dao,
+                intSetting(props, "app.coalescing.max_batch", 500),
+                Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(intSetting(props, "app.coalescing.window_us", 1_000))),
+                intSetting(props, "app.coalescing.max_concurrent_loads", 4));
+    }
+
+    private static WriteBehindUserService withWriteBehind(UserService service, UserDao dao, Validator validator, Properties props) {
+        if (!Boolean.parseBoolean(props.getProperty("app.write_behind.enabled", "false"))) return null;
+        return new WriteBehindUserService(service, dao, validator,
+                intSetting(props, "app.write_behind.capacity", 10_000),
+                intSetting(props, "app.write_behind.max_batch", 500),
+                Duration.ofMillis(intSetting(props, "app.write_behind.max_delay_ms", 5)),
+                Duration.ofMillis(intSetting(props, "app.write_behind.enqueue_timeout_ms", 1_000)));
+    }
+
+    private static RetryPolicy retryPolicy(Properties props) {
+        return new RetryPolicy(
+                intSetting(props, "app.update.max_attempts", 5),
+                Duration.ofMillis(intSetting(props, "app.update.backoff_ms", 5)),
+                Duration.ofMillis(intSetting(props, "app.update.max_backoff_ms", 200)));
+    }
+
+    private static MetricsHttpServer startMetricsServer(MetricsReport report, Properties props) {
+        int port = intSetting(props, "app.metrics.http_port", 0);
+        if (port <= 0) return null;
+        try {
+            return new MetricsHttpServer(port, report::render);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Не удалось запустить HTTP-эндпоинт метрик на порту " + port, ex);
+        }
+    }
+}
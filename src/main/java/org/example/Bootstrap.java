@@ -0,0 +1,134 @@
+package org.example;
+
+import org.example.concurrent.VirtualThreads;
+import org.example.db.ConnectionPool;
+import org.example.db.PooledConnectionProvider;
+import org.example.metrics.StartupTimer;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Параллельная сборка пула + SessionFactory, (опционально) пула + SessionFactory реплики и ValidatorFactory
+// в фоновых потоках. Геттеры ждут готовности; close() дожидается сборки и закрывает всё, что удалось создать.
+class Bootstrap implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(Bootstrap.class);
+    private final CompletableFuture<ConnectionPool> pool;
+    private final CompletableFuture<SessionFactory> sessionFactory;
+    private final CompletableFuture<ValidatorFactory> validatorFactory;
+    private final CompletableFuture<ConnectionPool> replicaPool;
+    private final CompletableFuture<SessionFactory> replicaSessionFactory;
+
+    private Bootstrap(Configuration configuration, Configuration replicaConfiguration, StartupTimer startup) {
+        ExecutorService executor = Executors.newFixedThreadPool(replicaConfiguration == null ? 2 : 3,
+                VirtualThreads.daemonThreads("bootstrap"));
+        pool = CompletableFuture.supplyAsync(
+                () -> startup.time("Пул соединений", () -> ConnectionPool.fromProperties(configuration.getProperties())), executor);
+        // thenApplyAsync: SessionFactory всегда строится в фоновом потоке, даже если пул был готов
+        // до подписки (thenApply выполнил бы её в вызывающем потоке и задержал консоль)
+        sessionFactory = pool.thenApplyAsync(
+                p -> startup.time("SessionFactory", () -> buildSessionFactory(configuration, p)), executor);
+        validatorFactory = CompletableFuture.supplyAsync(
+                () -> startup.time("ValidatorFactory", Bootstrap::buildValidatorFactory), executor);
+        if (replicaConfiguration != null) {
+            replicaPool = CompletableFuture.supplyAsync(() -> startup.time("Пул соединений реплики",
+                    () -> ConnectionPool.fromProperties(replicaConfiguration.getProperties(), "app.replica.", "app.replica.pool.")), executor);
+            replicaSessionFactory = replicaPool.thenApplyAsync(
+                    p -> startup.time("SessionFactory реплики", () -> buildSessionFactory(replicaConfiguration, p)), executor);
+        } else {
+            replicaPool = CompletableFuture.completedFuture(null);
+            replicaSessionFactory = CompletableFuture.completedFuture(null);
+        }
+        // исполнитель останавливается, когда все фабрики готовы: до этого в него ещё ставятся продолжения
+        CompletableFuture.allOf(sessionFactory, validatorFactory, replicaSessionFactory).whenComplete((ignored, ex) -> {
+            executor.shutdown();
+            if (ex == null) startup.mark("Фабрики готовы");
+            log.info("Фазы запуска: {}", startup.summary());
+        });
+    }
+
+    static Bootstrap start(Configuration configuration, StartupTimer startup) {
+        return new Bootstrap(configuration, null, startup);
+    }
+
+    // replicaConfiguration == null - без реплики
+    static Bootstrap start(Configuration configuration, Configuration replicaConfiguration, StartupTimer startup) {
+        return new Bootstrap(configuration, replicaConfiguration, startup);
+    }
+
+    CompletableFuture<Void> ready() {
+        return CompletableFuture.allOf(pool, sessionFactory, validatorFactory, replicaSessionFactory);
+    }
+
+    ConnectionPool pool() {
+        return await(pool);
+    }
+
+    SessionFactory sessionFactory() {
+        return await(sessionFactory);
+    }
+
+    ValidatorFactory validatorFactory() {
+        return await(validatorFactory);
+    }
+
+    // null, если реплика не настроена
+    ConnectionPool replicaPool() {
+        return await(replicaPool);
+    }
+
+    SessionFactory replicaSessionFactory() {
+        return await(replicaSessionFactory);
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(validatorFactory);
+        closeQuietly(replicaSessionFactory);
+        closeQuietly(replicaPool);
+        closeQuietly(sessionFactory);
+        closeQuietly(pool);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException("Ошибка инициализации", ex.getCause());
+        }
+    }
+
+    private static void closeQuietly(CompletableFuture<? extends AutoCloseable> future) {
+        try {
+            AutoCloseable closeable = future.join();
+            if (closeable != null) closeable.close();
+        } catch (CompletionException ex) {
+            // ошибка сборки уже передана тому, кто ждал результат
+        } catch (Exception ex) {
+            log.warn("Ошибка при закрытии: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private static SessionFactory buildSessionFactory(Configuration configuration, ConnectionPool pool) {
+        configuration.getProperties().put(AvailableSettings.CONNECTION_PROVIDER, new PooledConnectionProvider(pool));
+        return configuration.buildSessionFactory();
+    }
+
+    private static ValidatorFactory buildValidatorFactory() {
+        return Validation
+                .byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+    }
+}
@@ -1,20 +1,32 @@
 package org.example;
 
+import org.example.dao.TimeBucket;
 import org.example.model.User;
+import org.example.model.UserView;
 import org.example.service.UserService;
 import org.hibernate.HibernateException;
+
+import javax.persistence.OptimisticLockException;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class ConsoleApp {
     private static final Logger log = LoggerFactory.getLogger(ConsoleApp.class);
+    private static final int PAGE_SIZE = 20;
     private final UserService userService;
+    private final Supplier<String> metricsReport;
     private final Scanner scanner = new Scanner(System.in);
 
     public ConsoleApp(UserService userService) {
+        this(userService, () -> "Метрики не собираются.");
+    }
+
+    public ConsoleApp(UserService userService, Supplier<String> metricsReport) {
         this.userService = userService;
+        this.metricsReport = metricsReport;
     }
 
     public void run() {
@@ -35,12 +47,24 @@ public class ConsoleApp {
                     case "4":
                         deleteUser();
                         break;
+                    case "5":
+                        findUserByEmail();
+                        break;
+                    case "6":
+                        System.out.println(metricsReport.get());
+                        break;
+                    case "7":
+                        showStatistics();
+                        break;
                     case "0":
                         System.out.println("Выход.");
                         return;
                     default:
                         System.out.println("Неверный выбор, попробуйте ещё раз.");
                 }
+            } catch (OptimisticLockException ex) {
+                log.warn(ex.getMessage());
+                System.out.println(ex.getMessage() + ". Повторите операцию.");
             } catch (HibernateException ex) {
                 log.error("Ошибка при работе с БД: {}", ex.getMessage(), ex);
                 System.out.println("Произошла ошибка при доступе к базе: " + ex.getMessage());
@@ -57,9 +81,12 @@ public class ConsoleApp {
     private void printMenu() {
         System.out.println("\n=== Меню ===");
         System.out.println("1. Создать пользователя");
-        System.out.println("2. Показать всех пользователей");
+        System.out.println("2. Показать пользователей (постранично)");
         System.out.println("3. Обновить пользователя");
         System.out.println("4. Удалить пользователя");
+        System.out.println("5. Найти пользователя по email");
+        System.out.println("6. Метрики");
+        System.out.println("7. Статистика");
         System.out.println("0. Выход");
         System.out.print("Выберите действие: ");
     }
@@ -77,15 +104,33 @@ public class ConsoleApp {
     }
 
     private void listUsers() {
-        List<User> users = userService.findAll();
-        if (users.isEmpty()) {
+        int shown = 0;
+        int afterId = 0;
+        while (true) {
+            List<UserView> page = userService.findViewPage(afterId, PAGE_SIZE);
+            if (page.isEmpty()) break;
+            if (shown == 0) System.out.println("Список пользователей (всего " + userService.count() + "):");
+            page.forEach(System.out::println);
+            shown += page.size();
+            afterId = page.get(page.size() - 1).getId();
+            if (page.size() < PAGE_SIZE) break;
+            System.out.print("ENTER - следующая страница, q - закончить: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+        }
+        if (shown == 0) {
             System.out.println("Нет пользователей.");
         } else {
-            System.out.println("Список пользователей:");
-            users.forEach(System.out::println);
-            System.out.println("Всего пользователей: " + users.size());
+            System.out.println("Показано пользователей: " + shown);
         }
-        log.info("Выведено пользователей: {}", users.size());
+        log.info("Выведено пользователей: {}", shown);
+    }
+
+    private void showStatistics() {
+        System.out.println("Всего пользователей: " + userService.count());
+        System.out.println("Возраст:");
+        userService.ageHistogram(10).forEach((from, count) -> System.out.printf("  %3d-%-3d %d%n", from, from + 9, count));
+        System.out.println("Регистрации по неделям:");
+        userService.signupsPer(TimeBucket.WEEK).forEach((week, count) -> System.out.println("  " + week + "  " + count));
     }
 
     private void updateUser() {
@@ -114,7 +159,7 @@ public class ConsoleApp {
         if (name != null || email != null || age != null) needUpdate = true;
 
         if (needUpdate) {
-            User updatedUser = userService.update(id, name, email, age);
+            User updatedUser = userService.update(id, user.getVersion(), name, email, age);
             System.out.println("Пользователь обновлён: " + updatedUser);
             log.info("Обновлён пользователь: {}", updatedUser);
         } else {
@@ -136,6 +181,17 @@ public class ConsoleApp {
 
     }
 
+    private void findUserByEmail() {
+        System.out.print("Email: ");
+        String email = scanner.nextLine();
+        User user = userService.findByEmail(email);
+        if (user == null) {
+            System.out.println("Пользователь с email=" + email + " не найден!");
+        } else {
+            System.out.println("Пользователь найден: " + user);
+        }
+    }
+
     private Integer readInt(String message, boolean blankInputIsOK){
         while (true){
             System.out.print(message);
@@ -1,40 +1,125 @@
 package org.example;
 
-import org.example.dao.UserDao;
-import org.example.dao.UserDaoImpl;
+import org.example.load.LoadGenerator;
+import org.example.load.LoadProfile;
+import org.example.load.LoadReport;
+import org.example.metrics.StartupTimer;
 import org.example.model.User;
+import org.example.service.DeferredUserService;
 import org.example.service.UserService;
-import org.example.service.UserServiceImpl;
+import org.example.transfer.ExportResult;
+import org.example.transfer.ImportResult;
+import org.example.transfer.UserExportService;
+import org.example.transfer.UserImportService;
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
-import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.validation.Validation;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class MainApp {
     private static final Logger log = LoggerFactory.getLogger(MainApp.class);
     public static void main(String[] args) {
-
-        Configuration configuration = new Configuration().addAnnotatedClass(User.class);
-        try (
-                SessionFactory sf = configuration.buildSessionFactory();
-                ValidatorFactory vf = Validation
-                        .byDefaultProvider()
-                        .configure()
-                        .messageInterpolator(new ParameterMessageInterpolator())
-                        .buildValidatorFactory();
-        ) {
-            UserDao dao = new UserDaoImpl(sf);
-            Validator val = vf.getValidator();
-            UserService userService = new UserServiceImpl(dao,val);
-            new ConsoleApp(userService).run();
+        StartupTimer startup = new StartupTimer();
+        startup.mark("main");
+        Configuration configuration = startup.time("Конфигурация", () -> new Configuration().addAnnotatedClass(User.class));
+        Properties props = configuration.getProperties();
+        // фабрики собираются в фоне, консоль стартует сразу; первая операция с БД ждёт их готовности
+        boolean background = Boolean.parseBoolean(props.getProperty("app.startup.background", "true"));
+        Configuration replica = Boolean.parseBoolean(props.getProperty("app.replica.enabled", "false"))
+                ? replicaConfiguration(props) : null;
+        try (Bootstrap bootstrap = Bootstrap.start(configuration, replica, startup)) {
+            CompletableFuture<AppContext> context = bootstrap.ready().thenApply(ignored -> new AppContext(bootstrap, props));
+            try {
+                if (!background) context.join();
+                if (args.length > 0 && "import".equals(args[0])) {
+                    runImport(args, bootstrap.sessionFactory(), bootstrap.validatorFactory().getValidator());
+                } else if (args.length > 0 && "export".equals(args[0])) {
+                    runExport(args, bootstrap.sessionFactory());
+                } else if (args.length > 0 && "load".equals(args[0])) {
+                    runLoad(args, context.join());
+                } else {
+                    UserService userService = new DeferredUserService(
+                            context.thenApply(AppContext::userService), () -> startup.mark("Первое обращение к БД"));
+                    startup.mark("Консоль готова");
+                    new ConsoleApp(userService, () -> context.join().report().render()).run();
+                }
+            } finally {
+                closeContext(context);
+            }
         } catch (Exception ex) {
             log.error("Не удалось запустить приложение", ex);
             System.err.println("Не удалось запустить приложение: " + ex.getMessage());
         }
     }
+
+    // Те же сущности и настройки Hibernate, подключение - из app.replica.*. Кэш второго уровня у реплики выключен:
+    // запись через основную фабрику не сбрасывала бы его. Схему реплика не меняет
+    private static Configuration replicaConfiguration(Properties props) {
+        Configuration replica = new Configuration().addAnnotatedClass(User.class);
+        replica.setProperty(AvailableSettings.URL, props.getProperty("app.replica.url"));
+        replica.setProperty(AvailableSettings.HBM2DDL_AUTO, "none");
+        replica.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+        replica.setProperty(AvailableSettings.USE_QUERY_CACHE, "false");
+        return replica;
+    }
+
+    private static void closeContext(CompletableFuture<AppContext> context) {
+        AppContext ready;
+        try {
+            ready = context.join();
+        } catch (CompletionException ex) {
+            // ошибка инициализации уже получена вызывающим
+            return;
+        }
+        ready.close();
+    }
+
+    // import <файл.csv|файл.ndjson[.gz]> [файл-отказов]
+    private static void runImport(String[] args, SessionFactory sf, Validator validator) throws IOException {
+        if (args.length < 2) throw new IllegalArgumentException("Использование: import <файл.csv|файл.ndjson> [файл-отказов]");
+        Path source = Path.of(args[1]);
+        Path rejects = args.length > 2 ? Path.of(args[2]) : Path.of(args[1] + ".rejects.tsv");
+        ImportResult result = new UserImportService(sf, validator).importFile(source, rejects);
+        System.out.println("Импорт завершён: " + result);
+        if (result.getRejected() > 0) System.out.println("Отклонённые строки: " + rejects);
+    }
+
+    // load [--clients=64] [--rate=500] [--warmup=10] [--duration=60] [--mix=create:10,findById:70,...] [--csv=файл]
+    private static void runLoad(String[] args, AppContext context) throws IOException {
+        LoadProfile profile = LoadProfile.parse(args, 1);
+        LoadReport report = new LoadGenerator(context.userService(), profile).run();
+        System.out.print(report.render());
+        if (profile.getCsv() != null) {
+            report.writeCsv(profile.getCsv());
+            System.out.println("CSV: " + profile.getCsv());
+        }
+    }
+
+    // export <файл.csv|файл.ndjson[.gz]> [--columns=id,name,...] [--where=<условие SQL>]
+    private static void runExport(String[] args, SessionFactory sf) throws IOException {
+        if (args.length < 2) throw new IllegalArgumentException("Использование: export <файл.csv|файл.ndjson[.gz]> [--columns=id,name] [--where=age>30]");
+        List<String> columns = null;
+        String where = null;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--columns=")) {
+                columns = Arrays.asList(args[i].substring("--columns=".length()).split(","));
+            } else if (args[i].startsWith("--where=")) {
+                where = args[i].substring("--where=".length());
+            } else {
+                throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+            }
+        }
+        ExportResult result = new UserExportService(sf).export(Path.of(args[1]), columns, where);
+        System.out.println("Экспорт завершён: " + result);
+    }
 }
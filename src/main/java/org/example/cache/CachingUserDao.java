@@ -0,0 +1,137 @@
+package org.example.cache;
+
+import org.example.dao.ForwardingUserDao;
+import org.example.dao.UpsertResult;
+import org.example.dao.UserDao;
+import org.example.dao.UserQuery;
+import org.example.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-through кэш для findById. Записи инвалидируются после успешного изменения в БД.
+public class CachingUserDao extends ForwardingUserDao {
+    private final UserCache cache;
+
+    public CachingUserDao(UserDao delegate, UserCache cache) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    @Override
+    public User findById(int id) {
+        User cached = cache.get(id);
+        if (cached != null) return cached;
+        long stamp = cache.stamp();
+        User user = delegate.findById(id);
+        if (user != null) cache.put(user, stamp);
+        return user;
+    }
+
+    // из БД догружаются только промахи, одним запросом
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        Map<Integer, User> found = new HashMap<>();
+        int[] misses = new int[ids.length];
+        int missCount = 0;
+        for (int id : ids) {
+            if (found.containsKey(id)) continue;
+            User cached = cache.get(id);
+            found.put(id, cached);
+            if (cached == null) misses[missCount++] = id;
+        }
+        if (missCount > 0) {
+            long stamp = cache.stamp();
+            for (User user : delegate.findAllByIds(Arrays.copyOf(misses, missCount))) {
+                cache.put(user, stamp);
+                found.put(user.getId(), user);
+            }
+        }
+        List<User> result = new ArrayList<>(found.size());
+        for (int id : ids) {
+            User user = found.remove(id);
+            if (user != null) result.add(user);
+        }
+        return result;
+    }
+
+    // id обновлённых строк известны только после запроса; вставленные и так не в кэше
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users) {
+        UpsertResult result = delegate.upsertByEmail(users);
+        result.getUsers().forEach(user -> cache.invalidate(user.getId()));
+        return result;
+    }
+
+    @Override
+    public void update(User user) {
+        try {
+            delegate.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age) {
+        try {
+            return delegate.updateFields(id, expectedVersion, name, email, age);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    // какие строки попали под критерии, известно только БД: сбрасываем кэш целиком
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        try {
+            return delegate.updateWhere(criteria, name, age);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        try {
+            delegate.delete(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public User deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        try {
+            return delegate.deleteByIds(ids);
+        } finally {
+            for (int id : ids) cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        try {
+            return delegate.deleteWhere(criteria);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.cache;
+
+import org.example.model.User;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Ограниченный LRU-кэш с TTL. Хранит и отдаёт копии, чтобы изменения у вызывающего не портили кэш.
+public class LruUserCache implements UserCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long invalidations;
+
+    public LruUserCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    LruUserCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize < 1) throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxSize);
+        if (ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("TTL кэша должен быть положительным: " + ttl);
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public User get(int id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null && nanoClock.getAsLong() - entry.expiresAt >= 0) {
+                entries.remove(id);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return new User(entry.user);
+        }
+    }
+
+    @Override
+    public long stamp() {
+        synchronized (entries) {
+            return invalidations;
+        }
+    }
+
+    @Override
+    public void put(User user, long stamp) {
+        User copy = new User(user);
+        synchronized (entries) {
+            if (stamp != invalidations) return;
+            entries.put(copy.getId(), new Entry(copy, nanoClock.getAsLong() + ttlNanos));
+            if (entries.size() > maxSize) {
+                Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(int id) {
+        synchronized (entries) {
+            invalidations++;
+            entries.remove(id);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations++;
+            entries.clear();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private static class Entry {
+        final User user;
+        final long expiresAt;
+
+        Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.cache;
+
+import org.example.model.User;
+
+public interface UserCache {
+    User get(int id);
+    // отметка, снимаемая перед загрузкой из БД: put с устаревшей отметкой игнорируется
+    long stamp();
+    void put(User user, long stamp);
+    void invalidate(int id);
+    void invalidateAll();
+    CacheStats stats();
+}
@@ -0,0 +1,48 @@
+package org.example.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Исполнитель на виртуальных потоках (Java 21+). Проект собирается под Java 11, поэтому
+// метод ищется рефлексией; на старых JVM используется пул платформенных потоков.
+public final class VirtualThreads {
+    private static final Method NEW_VIRTUAL_EXECUTOR = lookupVirtualExecutorFactory();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    public static ExecutorService newExecutor(String name, int fallbackThreads) {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", ex);
+            }
+        }
+        return Executors.newFixedThreadPool(fallbackThreads, daemonThreads(name));
+    }
+
+    public static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Method lookupVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
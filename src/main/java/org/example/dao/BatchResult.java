@@ -0,0 +1,80 @@
+package org.example.dao;
+
+import org.example.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchResult {
+    private int inserted;
+    private final List<Failure> failures = new ArrayList<>();
+
+    void addInserted(int count) {
+        inserted += count;
+    }
+
+    void addFailure(int batchIndex, List<User> users, Exception cause) {
+        addFailure(0, batchIndex, users, cause);
+    }
+
+    void addFailure(int shard, int batchIndex, List<User> users, Exception cause) {
+        failures.add(new Failure(shard, batchIndex, users, cause));
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getFailed() {
+        return failures.stream().mapToInt(f -> f.getUsers().size()).sum();
+    }
+
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "inserted=" + inserted + ", failed=" + getFailed() + ", failedBatches=" + failures.size();
+    }
+
+    public static class Failure {
+        // строки вне пакетов отклонены после вставки (например, id вне диапазона шарда)
+        public static final int AFTER_INSERT = -1;
+
+        private final int shard;
+        private final int batchIndex;
+        private final List<User> users;
+        private final Exception cause;
+
+        Failure(int shard, int batchIndex, List<User> users, Exception cause) {
+            this.shard = shard;
+            this.batchIndex = batchIndex;
+            this.users = Collections.unmodifiableList(users);
+            this.cause = cause;
+        }
+
+        // номер шарда (ShardedUserDao), без шардирования - 0
+        public int getShard() {
+            return shard;
+        }
+
+        // номер пакета внутри своего шарда
+        public int getBatchIndex() {
+            return batchIndex;
+        }
+
+        public List<User> getUsers() {
+            return users;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+    }
+}
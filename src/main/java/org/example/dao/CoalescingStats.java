@@ -0,0 +1,42 @@
+package org.example.dao;
+
+public class CoalescingStats {
+    private final long requests;
+    private final long shared;
+    private final long batches;
+    private final long loadedIds;
+
+    public CoalescingStats(long requests, long shared, long batches, long loadedIds) {
+        this.requests = requests;
+        this.shared = shared;
+        this.batches = batches;
+        this.loadedIds = loadedIds;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    // запросы, получившие результат уже идущей загрузки того же id
+    public long getShared() {
+        return shared;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getLoadedIds() {
+        return loadedIds;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0.0 : (double) loadedIds / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests=%d, shared=%d, batches=%d, avgBatch=%.1f",
+                requests, shared, batches, getAverageBatchSize());
+    }
+}
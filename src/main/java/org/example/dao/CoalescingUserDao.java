@@ -0,0 +1,181 @@
+package org.example.dao;
+
+import org.example.concurrent.VirtualThreads;
+import org.example.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Объединение параллельных findById: запросы, пришедшие в течение window, уходят в БД одним findAllByIds
+// (не больше maxBatch id), а ожидающие один и тот же id получают один общий результат (single-flight).
+// Поток-сборщик только формирует пакеты; загрузки идут в исполнителе, одновременно не больше maxConcurrentLoads -
+// пока все заняты, сборщик ждёт, а очередь копит следующий (более крупный) пакет.
+// Присоединившийся к уже идущему запросу может не увидеть запись, зафиксированную после его начала -
+// так же, как обычное параллельное чтение. Каждый вызывающий получает свою копию User.
+public class CoalescingUserDao extends ForwardingUserDao implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingUserDao.class);
+    private static final long IDLE_POLL_MS = 100;
+
+    private final ConcurrentHashMap<Integer, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+    private final int maxBatch;
+    private final long windowNanos;
+    private final Semaphore loadSlots;
+    private final ExecutorService loads;
+    private final Thread collector;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder loadedIds = new LongAdder();
+    private volatile boolean closed;
+
+    public CoalescingUserDao(UserDao delegate, int maxBatch, Duration window, int maxConcurrentLoads) {
+        super(delegate);
+        if (maxBatch < 1) throw new IllegalArgumentException("Размер пакета должен быть положительным: " + maxBatch);
+        if (maxConcurrentLoads < 1) {
+            throw new IllegalArgumentException("Число параллельных загрузок должно быть положительным: " + maxConcurrentLoads);
+        }
+        this.maxBatch = maxBatch;
+        this.windowNanos = window.toNanos();
+        this.loadSlots = new Semaphore(maxConcurrentLoads);
+        this.loads = VirtualThreads.newExecutor("coalescing-load", maxConcurrentLoads);
+        this.collector = VirtualThreads.daemonThreads("coalescing-collector").newThread(this::collectLoop);
+        this.collector.start();
+        log.info("Объединение findById: maxBatch={}, window={}, maxConcurrentLoads={}", maxBatch, window, maxConcurrentLoads);
+    }
+
+    @Override
+    public User findById(int id) {
+        requests.increment();
+        CompletableFuture<User> mine = new CompletableFuture<>();
+        CompletableFuture<User> existing = inFlight.putIfAbsent(id, mine);
+        if (existing != null) {
+            shared.increment();
+            return copy(await(existing));
+        }
+        if (closed) {
+            try {
+                mine.complete(delegate.findById(id));
+            } catch (RuntimeException ex) {
+                mine.completeExceptionally(ex);
+            } finally {
+                inFlight.remove(id, mine);
+            }
+        } else {
+            queue.add(id);
+            // гонка с close(): поток загрузки мог уже остановиться
+            if (closed) drainAndLoad();
+        }
+        return copy(await(mine));
+    }
+
+    public CoalescingStats stats() {
+        return new CoalescingStats(requests.sum(), shared.sum(), batches.sum(), loadedIds.sum());
+    }
+
+    // новые запросы идут в БД напрямую, уже поставленные в очередь и начатые загрузки дочитываются
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            collector.join();
+            loads.shutdown();
+            loads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        drainAndLoad();
+        log.info("Объединение findById остановлено: {}", stats());
+    }
+
+    private void collectLoop() {
+        while (true) {
+            List<Integer> batch = new ArrayList<>(maxBatch);
+            try {
+                Integer first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) return;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Integer next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                loadSlots.acquire();
+                loads.execute(() -> {
+                    try {
+                        load(batch);
+                    } finally {
+                        loadSlots.release();
+                    }
+                });
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                // ожидающие уже снятых с очереди id не должны зависнуть
+                if (!batch.isEmpty()) load(batch);
+                return;
+            }
+        }
+    }
+
+    private void drainAndLoad() {
+        List<Integer> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) load(rest);
+    }
+
+    // id снимается с inFlight до завершения: следующий findById того же id пойдёт новым запросом
+    private void load(List<Integer> batch) {
+        int[] ids = new int[batch.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = batch.get(i);
+        Map<Integer, User> byId = new HashMap<>();
+        try {
+            for (User user : delegate.findAllByIds(ids)) byId.put(user.getId(), user);
+        } catch (RuntimeException ex) {
+            log.warn("Объединённая загрузка {} id не удалась: {}", ids.length, ex.getMessage());
+            for (int id : ids) {
+                CompletableFuture<User> future = inFlight.remove(id);
+                if (future != null) future.completeExceptionally(ex);
+            }
+            return;
+        }
+        batches.increment();
+        loadedIds.add(ids.length);
+        for (int id : ids) {
+            CompletableFuture<User> future = inFlight.remove(id);
+            if (future != null) future.complete(byId.get(id));
+        }
+    }
+
+    private static User await(CompletableFuture<User> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private static User copy(User user) {
+        return user == null ? null : new User(user);
+    }
+}
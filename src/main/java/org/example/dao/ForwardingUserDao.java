@@ -0,0 +1,134 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.example.model.UserView;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+// Базовый декоратор: делегирует все операции, наследники переопределяют только нужные
+public abstract class ForwardingUserDao implements UserDao {
+    protected final UserDao delegate;
+
+    protected ForwardingUserDao(UserDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void create(User user) {
+        delegate.create(user);
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users) {
+        return delegate.upsertByEmail(users);
+    }
+
+    @Override
+    public User findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return delegate.findByNamePrefix(prefix, afterId, limit);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        return delegate.findViewById(id);
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return delegate.findViewPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return delegate.search(query);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        return delegate.ageHistogram(bucketWidth);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        return delegate.signupsPer(bucket);
+    }
+
+    @Override
+    public void update(User user) {
+        delegate.update(user);
+    }
+
+    @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age) {
+        return delegate.updateFields(id, expectedVersion, name, email, age);
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return delegate.updateWhere(criteria, name, age);
+    }
+
+    @Override
+    public void delete(User user) {
+        delegate.delete(user);
+    }
+
+    @Override
+    public User deleteById(int id) {
+        return delegate.deleteById(id);
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        return delegate.deleteByIds(ids);
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return delegate.deleteWhere(criteria);
+    }
+}
@@ -0,0 +1,547 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.example.model.UserView;
+import org.hibernate.exception.ConstraintViolationException;
+
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Хранилище пользователей в памяти, без JDBC: для тестов, локальной разработки и "горячего" уровня.
+// Данные разбиты на полосы (stripe) по id, каждая - IntObjectMap под своим ReadWriteLock:
+// читатели разных полос не мешают друг другу, писатели блокируют только свою полосу.
+// Уникальность email - через ConcurrentHashMap email -> id. Хранятся и отдаются копии.
+// Семантика повторяет UserDaoImpl: id из последовательности, @Version, дубликат email - ConstraintViolationException.
+public class InMemoryUserDao implements UserDao, AutoCloseable {
+    private static final String EMAIL_CONSTRAINT = "users_email_key";
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final Comparator<User> BY_ID = Comparator.comparingInt(User::getId);
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final ConcurrentHashMap<String, Integer> emails = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private UserSnapshotLog snapshot;
+
+    public InMemoryUserDao() {
+        this(defaultStripes());
+    }
+
+    public InMemoryUserDao(int stripeCount) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Число полос должно быть степенью двойки: " + stripeCount);
+        }
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new Stripe();
+        stripeMask = stripeCount - 1;
+    }
+
+    // состояние восстанавливается из журнала, дальнейшие изменения дописываются в него
+    public static InMemoryUserDao open(Path snapshotFile) throws IOException {
+        InMemoryUserDao dao = new InMemoryUserDao();
+        dao.snapshot = UserSnapshotLog.open(snapshotFile, new UserSnapshotLog.Replay() {
+            @Override
+            public void put(User user) {
+                dao.restore(user);
+            }
+
+            @Override
+            public void delete(int id) {
+                dao.remove(id);
+            }
+        });
+        return dao;
+    }
+
+    @Override
+    public void create(User user) {
+        int id = sequence.incrementAndGet();
+        claimEmail(user.getEmail(), id);
+        User stored = new User(user);
+        stored.setId(id);
+        stored.setVersion(0);
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            stripe.users.put(id, stored);
+            if (snapshot != null) snapshot.put(stored);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+        user.setId(id);
+        user.setVersion(0);
+    }
+
+    // построчно: ошибка одной строки не отменяет остальные, в отказы попадает только она
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        BatchResult result = new BatchResult();
+        int index = 0;
+        for (User user : users) {
+            try {
+                create(user);
+                result.addInserted(1);
+            } catch (PersistenceException ex) {
+                result.addFailure(index, List.of(user), ex);
+            }
+            index++;
+        }
+        return result;
+    }
+
+    // каждая строка атомарна; гонку двух upsert одного email, как и уникальный индекс в БД, решает индекс email -> id
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users) {
+        Map<String, User> byEmail = new LinkedHashMap<>();
+        for (User user : users) byEmail.put(user.getEmail(), user);
+        List<User> result = new ArrayList<>(byEmail.size());
+        int inserted = 0;
+        int updated = 0;
+        for (User user : byEmail.values()) {
+            while (true) {
+                Integer id = user.getEmail() == null ? null : emails.get(user.getEmail());
+                if (id == null) {
+                    User created = new User(user);
+                    try {
+                        create(created);
+                    } catch (ConstraintViolationException ex) {
+                        continue;
+                    }
+                    result.add(created);
+                    inserted++;
+                    break;
+                }
+                Stripe stripe = stripe(id);
+                stripe.lock.writeLock().lock();
+                try {
+                    User current = stripe.users.get(id);
+                    // строку удалили или сменили ей email после чтения индекса - повторяем поиск
+                    if (current == null || !user.getEmail().equals(current.getEmail())) continue;
+                    if (Objects.equals(current.getName(), user.getName()) && current.getAge() == user.getAge()) {
+                        result.add(new User(current));
+                    } else {
+                        User stored = new User(current);
+                        stored.setName(user.getName());
+                        stored.setAge(user.getAge());
+                        stored.setVersion(current.getVersion() + 1);
+                        replace(stripe, current, stored);
+                        result.add(new User(stored));
+                        updated++;
+                    }
+                    break;
+                } finally {
+                    stripe.lock.writeLock().unlock();
+                }
+            }
+        }
+        return new UpsertResult(result, inserted, updated);
+    }
+
+    @Override
+    public User findById(int id) {
+        User user = get(id);
+        return user == null ? null : new User(user);
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        List<User> found = new ArrayList<>(ids.length);
+        Set<Integer> seen = new HashSet<>();
+        for (int id : ids) {
+            if (!seen.add(id)) continue;
+            User user = findById(id);
+            if (user != null) found.add(user);
+        }
+        return found;
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        Integer id = emails.get(User.normalizeEmail(email));
+        return id == null ? null : findById(id);
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return select(u -> u.getId() > afterId && u.getName() != null && u.getName().startsWith(prefix), BY_ID, limit);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return select(u -> true, BY_ID, Integer.MAX_VALUE);
+    }
+
+    // курсор по отсортированному снимку id: строки читаются по одной, удалённые после снимка пропускаются
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return IntStream.of(sortedIds()).mapToObj(this::findById).filter(Objects::nonNull);
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        List<User> page = probePage(afterId, limit);
+        return page != null ? page : select(u -> u.getId() > afterId, BY_ID, limit);
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        User user = get(id);
+        return user == null ? null : view(user);
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        List<User> page = findPage(afterId, limit);
+        List<UserView> views = new ArrayList<>(page.size());
+        for (User user : page) views.add(view(user));
+        return views;
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return select(query::matches, query.comparator(), query.getLimit());
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                count += stripe.users.size();
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        if (bucketWidth < 1) throw new IllegalArgumentException("Ширина корзины должна быть положительной: " + bucketWidth);
+        SortedMap<Integer, Long> histogram = new TreeMap<>();
+        forEach(u -> histogram.merge((u.getAge() / bucketWidth) * bucketWidth, 1L, Long::sum));
+        return histogram;
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        SortedMap<LocalDate, Long> signups = new TreeMap<>();
+        forEach(u -> {
+            if (u.getCreatedAt() == null) return;
+            LocalDate day = u.getCreatedAt().atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            signups.merge(bucket.truncate(day), 1L, Long::sum);
+        });
+        return signups;
+    }
+
+    @Override
+    public void update(User user) {
+        int id = user.getId();
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            User current = stripe.users.get(id);
+            checkVersion(id, current, user.getVersion());
+            User stored = new User(user);
+            stored.setVersion(current.getVersion() + 1);
+            replace(stripe, current, stored);
+            user.setVersion(stored.getVersion());
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age) {
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            User current = stripe.users.get(id);
+            if (current == null) return null;
+            if (expectedVersion != null) checkVersion(id, current, expectedVersion);
+            User stored = new User(current);
+            if (name != null) stored.setName(name);
+            if (email != null) stored.setEmail(email);
+            if (age != null) stored.setAge(age);
+            stored.setVersion(current.getVersion() + 1);
+            replace(stripe, current, stored);
+            return new User(stored);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // как один оператор SQL: все полосы заблокированы на время изменения
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        if (name == null && age == null) return 0;
+        lockAll();
+        try {
+            List<User> changed = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                stripe.users.forEach((id, user) -> {
+                    if (!criteria.matchesFilters(user)) return;
+                    boolean nameChanges = name != null && !name.equals(user.getName());
+                    boolean ageChanges = age != null && age != user.getAge();
+                    if (nameChanges || ageChanges) changed.add(user);
+                });
+            }
+            for (User current : changed) {
+                User stored = new User(current);
+                if (name != null) stored.setName(name);
+                if (age != null) stored.setAge(age);
+                stored.setVersion(current.getVersion() + 1);
+                replace(stripe(current.getId()), current, stored);
+            }
+            return changed.size();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        int id = user.getId();
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            checkVersion(id, stripe.users.get(id), user.getVersion());
+            removeLocked(stripe, id);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User deleteById(int id) {
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            User removed = removeLocked(stripe, id);
+            return removed == null ? null : new User(removed);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        int deleted = 0;
+        for (int id : ids) {
+            if (deleteById(id) != null) deleted++;
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        lockAll();
+        try {
+            int deleted = 0;
+            for (Stripe stripe : stripes) {
+                List<Integer> matched = new ArrayList<>();
+                stripe.users.forEach((id, user) -> {
+                    if (criteria.matchesFilters(user)) matched.add(id);
+                });
+                for (int id : matched) removeLocked(stripe, id);
+                deleted += matched.size();
+            }
+            return deleted;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // переписывает журнал текущим состоянием; на время сжатия изменения ждут
+    public void compact() {
+        if (snapshot == null) return;
+        lockAll();
+        try {
+            List<User> users = new ArrayList<>();
+            for (Stripe stripe : stripes) stripe.users.forEach((id, user) -> users.add(user));
+            users.sort(BY_ID);
+            snapshot.rewrite(users);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (snapshot == null) return;
+        try {
+            snapshot.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Не удалось закрыть журнал", ex);
+        }
+    }
+
+    private static int defaultStripes() {
+        int wanted = Math.min(64, Runtime.getRuntime().availableProcessors() * 4);
+        return Integer.highestOneBit(wanted - 1) << 1;
+    }
+
+    // id выдаются подряд, поэтому младшие биты равномерно распределяют их по полосам
+    private Stripe stripe(int id) {
+        return stripes[id & stripeMask];
+    }
+
+    private User get(int id) {
+        Stripe stripe = stripe(id);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.users.get(id);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    // Плотный диапазон id: страница собирается прямыми обращениями по id после afterId.
+    // Если подряд слишком много удалённых id (проб больше, чем строк), возвращает null - нужен полный проход.
+    private List<User> probePage(int afterId, int limit) {
+        int last = sequence.get();
+        long budget = count();
+        List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        for (int id = Math.max(afterId, 0) + 1; id > 0 && id <= last && page.size() < limit; id++) {
+            if (--budget < 0) return null;
+            User user = findById(id);
+            if (user != null) page.add(user);
+        }
+        return page;
+    }
+
+    // полный проход с отбором limit первых в заданном порядке (куча размера limit вместо сортировки всего)
+    private List<User> select(Predicate<User> filter, Comparator<User> order, int limit) {
+        PriorityQueue<User> top = new PriorityQueue<>(order.reversed());
+        forEach(u -> {
+            if (!filter.test(u)) return;
+            if (top.size() < limit) {
+                top.add(u);
+            } else if (order.compare(u, top.peek()) < 0) {
+                top.poll();
+                top.add(u);
+            }
+        });
+        List<User> result = new ArrayList<>(top.size());
+        for (User user : top) result.add(new User(user));
+        result.sort(order);
+        return result;
+    }
+
+    private void forEach(Consumer<User> action) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.users.forEach((id, user) -> action.accept(user));
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+    }
+
+    private int[] sortedIds() {
+        int[] ids = new int[Math.toIntExact(count())];
+        int n = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                if (n + stripe.users.size() > ids.length) ids = Arrays.copyOf(ids, n + stripe.users.size());
+                n = stripe.users.copyKeys(ids, n);
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        int[] result = Arrays.copyOf(ids, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private void replace(Stripe stripe, User current, User stored) {
+        if (!Objects.equals(current.getEmail(), stored.getEmail())) {
+            claimEmail(stored.getEmail(), stored.getId());
+            if (current.getEmail() != null) emails.remove(current.getEmail(), current.getId());
+        }
+        stripe.users.put(stored.getId(), stored);
+        if (snapshot != null) snapshot.put(stored);
+    }
+
+    private User removeLocked(Stripe stripe, int id) {
+        User removed = stripe.users.remove(id);
+        if (removed == null) return null;
+        if (removed.getEmail() != null) emails.remove(removed.getEmail(), id);
+        if (snapshot != null) snapshot.delete(id);
+        return removed;
+    }
+
+    private void claimEmail(String email, int id) {
+        if (email == null) return;
+        Integer owner = emails.putIfAbsent(email, id);
+        if (owner != null && owner != id) {
+            String message = "Email " + email + " уже занят пользователем ID=" + owner;
+            throw new ConstraintViolationException(message, new SQLException(message, UNIQUE_VIOLATION), EMAIL_CONSTRAINT);
+        }
+    }
+
+    // проигрывание журнала: в одном потоке до публикации DAO
+    private void restore(User user) {
+        User previous = stripe(user.getId()).users.put(user.getId(), user);
+        if (previous != null && previous.getEmail() != null) emails.remove(previous.getEmail(), previous.getId());
+        if (user.getEmail() != null) emails.put(user.getEmail(), user.getId());
+        if (user.getId() > sequence.get()) sequence.set(user.getId());
+    }
+
+    private void remove(int id) {
+        User removed = stripe(id).users.remove(id);
+        if (removed != null && removed.getEmail() != null) emails.remove(removed.getEmail(), id);
+    }
+
+    private static void checkVersion(int id, User current, int expectedVersion) {
+        if (current == null || current.getVersion() != expectedVersion) {
+            throw new OptimisticLockException("Пользователь с ID=" + id + " был изменён или удалён другим пользователем (ожидалась версия " + expectedVersion + ")");
+        }
+    }
+
+    private static UserView view(User user) {
+        return new UserView(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getCreatedAt(), user.getVersion());
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) stripe.lock.writeLock().lock();
+    }
+
+    private void unlockAll() {
+        for (Stripe stripe : stripes) stripe.lock.writeLock().unlock();
+    }
+
+    private static final class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final IntObjectMap<User> users = new IntObjectMap<>();
+    }
+}
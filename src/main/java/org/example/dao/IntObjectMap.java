@@ -0,0 +1,144 @@
+package org.example.dao;
+
+// Хэш-таблица int -> V с открытой адресацией (линейное пробирование) без упаковки ключей в Integer
+// и без объектов-узлов. Ключ 0 зарезервирован как признак пустой ячейки (id пользователей > 0).
+// Удаление - обратным сдвигом, без "надгробий". Не потокобезопасна: синхронизацию обеспечивает владелец.
+final class IntObjectMap<V> {
+    interface Visitor<V> {
+        void visit(int key, V value);
+    }
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int shift;
+    private int size;
+    private int resizeAt;
+
+    IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    IntObjectMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        if (key == 0) return null;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) return (V) values[i];
+            if (k == 0) return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (key == 0) throw new IllegalArgumentException("Ключ 0 зарезервирован");
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > resizeAt) rehash(keys.length << 1);
+                return null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        if (key == 0) return null;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == 0) return null;
+            if (k == key) {
+                V old = (V) values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Visitor<? super V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) visitor.visit(keys[i], (V) values[i]);
+        }
+    }
+
+    // ключи в target начиная с offset; возвращает позицию после последнего
+    int copyKeys(int[] target, int offset) {
+        for (int k : keys) {
+            if (k != 0) target[offset++] = k;
+        }
+        return offset;
+    }
+
+    // ячейка освобождается, следующие элементы цепочки сдвигаются на её место,
+    // если их "родная" ячейка не лежит между освобождённой и текущей
+    private void shiftBack(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            int k = keys[i];
+            if (k == 0) break;
+            int home = slot(k);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = k;
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k == 0) continue;
+            int i = slot(k);
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // мультипликативное хэширование (Фибоначчи): последовательные id расходятся по таблице
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        int capacity = Integer.highestOneBit(Math.max(needed, MIN_CAPACITY) - 1) << 1;
+        if (capacity <= 0) throw new IllegalArgumentException("Слишком большой размер таблицы: " + expectedSize);
+        return capacity;
+    }
+}
@@ -0,0 +1,380 @@
+package org.example.dao;
+
+import org.example.concurrent.VirtualThreads;
+import org.example.model.User;
+import org.example.model.UserView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Чтение - с реплики, запись - в основную БД. В течение readYourWrites после записи поиск записанных id и email
+// идёт на основную БД из любого потока (в том числе через CoalescingUserDao: устаревшая строка с реплики не попадёт
+// в кэш findById), после смены email - любой findByEmail (прежний email неизвестен, а реплика ещё находит
+// по нему строку), после updateWhere/deleteWhere - всё чтение. Выборки (findAll, search, страницы) после точечной
+// записи читают реплику и могут отставать на её лаг. Ошибка чтения с реплики - повтор на основной БД, реплика
+// выключается из маршрута до успешной фоновой проверки replicaProbe, проверки - не чаще раза в recheck.
+// Реализует UserDao напрямую, чтобы новый метод нельзя было забыть маршрутизировать.
+public class ReadWriteRoutingUserDao implements UserDao {
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingUserDao.class);
+    // после стольких отслеживаемых ключей истёкшие отметки вычищаются (не чаще раза в окно)
+    private static final int PRUNE_THRESHOLD = 10_000;
+    private static final ThreadFactory PROBE_THREADS = VirtualThreads.daemonThreads("replica-probe");
+
+    private final UserDao primary;
+    private final UserDao replica;
+    private final BooleanSupplier replicaProbe;
+    private final long windowNanos;
+    private final long recheckNanos;
+    // id и email -> момент System.nanoTime(), до которого их поиск идёт на основную БД
+    private final ConcurrentHashMap<Integer, Long> writtenIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> writtenEmails = new ConcurrentHashMap<>();
+    private final AtomicLong nextPrune = new AtomicLong(System.nanoTime());
+    private final RouteCounters primaryRoute = new RouteCounters();
+    private final RouteCounters replicaRoute = new RouteCounters();
+    private final LongAdder readYourWrites = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile long bulkPrimaryUntil = System.nanoTime();
+    private volatile long emailsPrimaryUntil = System.nanoTime();
+    private final AtomicBoolean replicaHealthy = new AtomicBoolean(true);
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long nextCheck = System.nanoTime();
+
+    public ReadWriteRoutingUserDao(UserDao primary, UserDao replica, BooleanSupplier replicaProbe,
+                                   Duration readYourWrites, Duration recheck) {
+        if (readYourWrites.isNegative() || recheck.isNegative()) {
+            throw new IllegalArgumentException("Интервалы маршрутизации не могут быть отрицательными");
+        }
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaProbe = replicaProbe;
+        this.windowNanos = readYourWrites.toNanos();
+        this.recheckNanos = recheck.toNanos();
+        log.info("Чтение с реплики: readYourWrites={}, recheck={}", readYourWrites, recheck);
+    }
+
+    @Override
+    public void create(User user) {
+        write(user, dao -> {
+            dao.create(user);
+            return null;
+        });
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        try {
+            return primaryRoute.time(primary, dao -> dao.createAll(users));
+        } finally {
+            for (User user : users) written(user);
+        }
+    }
+
+    // id обновлённых строк известны только из результата
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users) {
+        UpsertResult result = null;
+        try {
+            result = primaryRoute.time(primary, dao -> dao.upsertByEmail(users));
+            return result;
+        } finally {
+            for (User user : result != null ? result.getUsers() : users) written(user);
+        }
+    }
+
+    @Override
+    public User findById(int id) {
+        return read(recentlyWritten(id), dao -> dao.findById(id));
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        boolean fresh = recentlyWritten();
+        for (int i = 0; i < ids.length && !fresh; i++) fresh = recent(writtenIds.get(ids[i]));
+        return read(fresh, dao -> dao.findAllByIds(ids));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return read(recentlyWritten(User.normalizeEmail(email)), dao -> dao.findByEmail(email));
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return read(recentlyWritten(), dao -> dao.findByNamePrefix(prefix, afterId, limit));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return read(recentlyWritten(), UserDao::findAll);
+    }
+
+    // маршрут выбирается при открытии курсора; ошибка при чтении потока до вызывающего доходит как есть
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return read(recentlyWritten(), dao -> dao.streamAll(fetchSize));
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return read(recentlyWritten(), dao -> dao.findPage(afterId, limit));
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        return read(recentlyWritten(id), dao -> dao.findViewById(id));
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return read(recentlyWritten(), dao -> dao.findViewPage(afterId, limit));
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return read(recentlyWritten(), dao -> dao.search(query));
+    }
+
+    @Override
+    public long count() {
+        return read(recentlyWritten(), UserDao::count);
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        return read(recentlyWritten(), dao -> dao.ageHistogram(bucketWidth));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        return read(recentlyWritten(), dao -> dao.signupsPer(bucket));
+    }
+
+    // email мог измениться
+    @Override
+    public void update(User user) {
+        emailChanged();
+        try {
+            write(user, dao -> {
+                dao.update(user);
+                return null;
+            });
+        } finally {
+            emailChanged();
+        }
+    }
+
+    @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age) {
+        if (email != null) emailChanged();
+        try {
+            User updated = write(id, dao -> dao.updateFields(id, expectedVersion, name, email, age));
+            if (updated != null) written(updated);
+            return updated;
+        } finally {
+            if (email != null) emailChanged();
+        }
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return bulkWrite(dao -> dao.updateWhere(criteria, name, age));
+    }
+
+    @Override
+    public void delete(User user) {
+        write(user, dao -> {
+            dao.delete(user);
+            return null;
+        });
+    }
+
+    @Override
+    public User deleteById(int id) {
+        User deleted = write(id, dao -> dao.deleteById(id));
+        if (deleted != null) written(deleted);
+        return deleted;
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        try {
+            return primaryRoute.time(primary, dao -> dao.deleteByIds(ids));
+        } finally {
+            for (int id : ids) written(id);
+        }
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return bulkWrite(dao -> dao.deleteWhere(criteria));
+    }
+
+    public RoutingStats stats() {
+        return new RoutingStats(primaryRoute.snapshot(), replicaRoute.snapshot(),
+                readYourWrites.sum(), fallbacks.sum(), replicaHealthy.get());
+    }
+
+    private <T> T read(boolean fresh, Function<UserDao, T> operation) {
+        if (fresh) {
+            readYourWrites.increment();
+            return primaryRoute.time(primary, operation);
+        }
+        if (!replicaAvailable()) {
+            fallbacks.increment();
+            return primaryRoute.time(primary, operation);
+        }
+        try {
+            return replicaRoute.time(replica, operation);
+        } catch (RuntimeException ex) {
+            replicaFailed(ex);
+            fallbacks.increment();
+            return primaryRoute.time(primary, operation);
+        }
+    }
+
+    // отметка и до записи: параллельный поиск этой строки не уйдёт на реплику, пока запись идёт
+    private <T> T write(int id, Function<UserDao, T> operation) {
+        written(id);
+        try {
+            return primaryRoute.time(primary, operation);
+        } finally {
+            written(id);
+        }
+    }
+
+    private <T> T write(User user, Function<UserDao, T> operation) {
+        written(user);
+        try {
+            return primaryRoute.time(primary, operation);
+        } finally {
+            written(user);
+        }
+    }
+
+    // затронутые строки неизвестны: всё чтение в течение окна - с основной БД
+    private <T> T bulkWrite(Function<UserDao, T> operation) {
+        try {
+            return primaryRoute.time(primary, operation);
+        } finally {
+            bulkPrimaryUntil = System.nanoTime() + windowNanos;
+        }
+    }
+
+    // прежний email строки не отслеживается: поиск по любому email в течение окна - с основной БД
+    private void emailChanged() {
+        emailsPrimaryUntil = System.nanoTime() + windowNanos;
+    }
+
+    private void written(User user) {
+        // id == 0 - строка ещё не вставлена
+        if (user.getId() != 0) written(user.getId());
+        if (user.getEmail() != null) written(User.normalizeEmail(user.getEmail()));
+    }
+
+    private void written(int id) {
+        writtenIds.put(id, System.nanoTime() + windowNanos);
+        pruneIfNeeded();
+    }
+
+    private void written(String email) {
+        writtenEmails.put(email, System.nanoTime() + windowNanos);
+        pruneIfNeeded();
+    }
+
+    private void pruneIfNeeded() {
+        if (writtenIds.size() + writtenEmails.size() <= PRUNE_THRESHOLD) return;
+        long now = System.nanoTime();
+        long prune = nextPrune.get();
+        if (now - prune < 0 || !nextPrune.compareAndSet(prune, now + windowNanos)) return;
+        writtenIds.values().removeIf(deadline -> now - deadline >= 0);
+        writtenEmails.values().removeIf(deadline -> now - deadline >= 0);
+    }
+
+    private boolean recentlyWritten() {
+        return System.nanoTime() - bulkPrimaryUntil < 0;
+    }
+
+    private boolean recentlyWritten(int id) {
+        return recentlyWritten() || recent(writtenIds.get(id));
+    }
+
+    private boolean recentlyWritten(String email) {
+        return recentlyWritten() || System.nanoTime() - emailsPrimaryUntil < 0 || recent(writtenEmails.get(email));
+    }
+
+    private static boolean recent(Long until) {
+        return until != null && System.nanoTime() - until < 0;
+    }
+
+    // проверка идёт в фоновом потоке: чтение не ждёт таймаута соединения с упавшей репликой
+    private boolean replicaAvailable() {
+        if (replicaHealthy.get()) return true;
+        if (System.nanoTime() - nextCheck >= 0 && probing.compareAndSet(false, true)) {
+            PROBE_THREADS.newThread(this::recheck).start();
+        }
+        return false;
+    }
+
+    private void recheck() {
+        try {
+            if (replicaProbe.getAsBoolean()) {
+                replicaHealthy.set(true);
+                log.info("Реплика снова доступна, чтение возвращено на неё");
+            } else {
+                nextCheck = System.nanoTime() + recheckNanos;
+            }
+        } finally {
+            probing.set(false);
+        }
+    }
+
+    // первая проверка - тоже через recheck: если реплика отвечает на проверку, но запросы на ней падают
+    // (например, конфликты с восстановлением на standby), маршрут не переключается на каждом запросе
+    private void replicaFailed(RuntimeException ex) {
+        if (replicaHealthy.compareAndSet(true, false)) {
+            nextCheck = System.nanoTime() + recheckNanos;
+            log.warn("Ошибка чтения с реплики, чтение переключено на основную БД: {}", ex.getMessage());
+        }
+    }
+
+    private static final class RouteCounters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        <T> T time(UserDao dao, Function<UserDao, T> operation) {
+            long started = System.nanoTime();
+            boolean failed = true;
+            try {
+                T result = operation.apply(dao);
+                failed = false;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                calls.increment();
+                nanos.add(elapsed);
+                maxNanos.accumulate(elapsed);
+                if (failed) errors.increment();
+            }
+        }
+
+        RoutingStats.Route snapshot() {
+            return new RoutingStats.Route(calls.sum(), errors.sum(), nanos.sum(), maxNanos.get());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.dao;
+
+import java.util.Locale;
+
+public class RoutingStats {
+    private final Route primary;
+    private final Route replica;
+    private final long readYourWrites;
+    private final long fallbacks;
+    private final boolean replicaHealthy;
+
+    public RoutingStats(Route primary, Route replica, long readYourWrites, long fallbacks, boolean replicaHealthy) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWrites = readYourWrites;
+        this.fallbacks = fallbacks;
+        this.replicaHealthy = replicaHealthy;
+    }
+
+    // все операции основной БД: запись, чтение своих записей и чтение вместо реплики
+    public Route getPrimary() {
+        return primary;
+    }
+
+    public Route getReplica() {
+        return replica;
+    }
+
+    // чтения, отправленные на основную БД из-за недавней записи
+    public long getReadYourWrites() {
+        return readYourWrites;
+    }
+
+    // чтения, отправленные на основную БД из-за ошибки или недоступности реплики
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    @Override
+    public String toString() {
+        return "primary: " + primary + "\nreplica: " + replica + (replicaHealthy ? "" : " (недоступна)")
+                + "\nreadYourWrites=" + readYourWrites + ", fallbacks=" + fallbacks;
+    }
+
+    public static class Route {
+        private final long calls;
+        private final long errors;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        public Route(long calls, long errors, long totalNanos, long maxNanos) {
+            this.calls = calls;
+            this.errors = errors;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getMeanMicros() {
+            return calls == 0 ? 0.0 : totalNanos / 1_000.0 / calls;
+        }
+
+        public double getMaxMicros() {
+            return maxNanos / 1_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "calls=%d, errors=%d, mean=%.1fus, max=%.1fus",
+                    calls, errors, getMeanMicros(), getMaxMicros());
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package org.example.dao;
+
+import org.example.concurrent.VirtualThreads;
+import org.example.model.User;
+import org.example.model.UserView;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import javax.persistence.Tuple;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Шардирование по хэшу email: шард новой строки выбирается по email (уникальность email и findByEmail -
+// в пределах одного шарда), номер шарда хранится в старших битах id - маршрутизация по id без поиска.
+// Последовательность каждого шарда выдаёт id только из своего диапазона (см. sequenceDdl).
+// Диапазоны возрастают с номером шарда, поэтому порядок "шард за шардом" совпадает с порядком id.
+public class ShardedUserDao implements UserDao, AutoCloseable {
+    public static final int SHARD_BITS = 4;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+    static final int SHARD_SHIFT = Integer.SIZE - 1 - SHARD_BITS;
+
+    private final List<UserDao> shards;
+    private final ExecutorService executor;
+
+    public ShardedUserDao(List<? extends UserDao> shards) {
+        if (shards.isEmpty() || shards.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("Число шардов должно быть от 1 до " + MAX_SHARDS + ": " + shards.size());
+        }
+        this.shards = List.copyOf(shards);
+        this.executor = VirtualThreads.newExecutor("shard", shards.size());
+    }
+
+    // последовательности проверяются до первой записи: иначе строка с чужим id была бы уже зафиксирована
+    public static ShardedUserDao over(List<SessionFactory> sessionFactories) {
+        for (int shard = 0; shard < sessionFactories.size(); shard++) checkSequence(sessionFactories.get(shard), shard);
+        return new ShardedUserDao(sessionFactories.stream().map(UserDaoImpl::new).collect(Collectors.toList()));
+    }
+
+    // первое значение - base + allocationSize: пул id [base + 1, base + 50] (pooled optimizer берёт [hi - 49, hi])
+    public static String sequenceDdl(int shard) {
+        long base = (long) shard << SHARD_SHIFT;
+        long max = base + (1L << SHARD_SHIFT) - 1;
+        long first = base + User.ID_ALLOCATION_SIZE;
+        return "ALTER SEQUENCE " + User.ID_SEQUENCE + " INCREMENT BY " + User.ID_ALLOCATION_SIZE
+                + " MINVALUE " + (base + 1) + " MAXVALUE " + max + " START WITH " + first + " RESTART WITH " + first;
+    }
+
+    public static int shardOf(int id) {
+        return id >>> SHARD_SHIFT;
+    }
+
+    public int shardForEmail(String email) {
+        return Math.floorMod(User.normalizeEmail(email).hashCode(), shards.size());
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void create(User user) {
+        int shard = shardForEmail(user.getEmail());
+        shards.get(shard).create(user);
+        if (shardOf(user.getId()) != shard) {
+            // строка уже зафиксирована, а по id её искали бы в другом шарде: удаляем до ошибки
+            int id = user.getId();
+            shards.get(shard).deleteById(id);
+            user.setId(0);
+            throw idOutOfRange(id, shard);
+        }
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        List<List<User>> byShard = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) byShard.add(new ArrayList<>());
+        for (User user : users) byShard.get(shardForEmail(user.getEmail())).add(user);
+
+        List<CompletableFuture<BatchResult>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            List<User> part = byShard.get(i);
+            futures.add(part.isEmpty()
+                    ? CompletableFuture.completedFuture(new BatchResult())
+                    : CompletableFuture.supplyAsync(() -> createAllInShard(shard, part), executor));
+        }
+        BatchResult merged = new BatchResult();
+        for (CompletableFuture<BatchResult> future : futures) {
+            BatchResult part = join(future);
+            merged.addInserted(part.getInserted());
+            for (BatchResult.Failure failure : part.getFailures()) {
+                merged.addFailure(failure.getShard(), failure.getBatchIndex(), new ArrayList<>(failure.getUsers()), failure.getCause());
+            }
+        }
+        return merged;
+    }
+
+    // отказы помечаются номером шарда: номера пакетов у каждого шарда свои. Строки с id вне диапазона шарда,
+    // как и в create, удаляются и попадают в отказы (AFTER_INSERT) - иначе по id их искали бы в другом шарде
+    private BatchResult createAllInShard(int shard, List<User> part) {
+        UserDao dao = shards.get(shard);
+        BatchResult result = dao.createAll(part);
+        BatchResult checked = new BatchResult();
+        Set<User> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BatchResult.Failure failure : result.getFailures()) {
+            failed.addAll(failure.getUsers());
+            checked.addFailure(shard, failure.getBatchIndex(), new ArrayList<>(failure.getUsers()), failure.getCause());
+        }
+        List<User> misplaced = new ArrayList<>();
+        for (User user : part) {
+            if (!failed.contains(user) && shardOf(user.getId()) != shard) misplaced.add(user);
+        }
+        checked.addInserted(result.getInserted() - misplaced.size());
+        if (!misplaced.isEmpty()) {
+            IllegalStateException cause = idOutOfRange(misplaced.get(0).getId(), shard);
+            dao.deleteByIds(misplaced.stream().mapToInt(User::getId).toArray());
+            misplaced.forEach(user -> user.setId(0));
+            checked.addFailure(shard, BatchResult.Failure.AFTER_INSERT, misplaced, cause);
+        }
+        return checked;
+    }
+
+    // email определяет шард, поэтому конфликт по email всегда разрешается внутри одного шарда
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users) {
+        List<List<User>> byShard = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) byShard.add(new ArrayList<>());
+        Set<String> order = new LinkedHashSet<>();
+        for (User user : users) {
+            order.add(user.getEmail());
+            byShard.get(shardForEmail(user.getEmail())).add(user);
+        }
+        List<CompletableFuture<UpsertResult>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            UserDao shard = shards.get(i);
+            List<User> part = byShard.get(i);
+            futures.add(part.isEmpty() ? null : CompletableFuture.supplyAsync(() -> shard.upsertByEmail(part), executor));
+        }
+        Map<String, User> stored = new HashMap<>();
+        int inserted = 0;
+        int updated = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            if (futures.get(i) == null) continue;
+            UpsertResult part = join(futures.get(i));
+            inserted += part.getInserted();
+            updated += part.getUpdated();
+            for (User user : part.getUsers()) {
+                checkIdRange(user, i);
+                stored.put(user.getEmail(), user);
+            }
+        }
+        List<User> merged = new ArrayList<>(stored.size());
+        for (String email : order) merged.add(stored.get(email));
+        return new UpsertResult(merged, inserted, updated);
+    }
+
+    @Override
+    public User findById(int id) {
+        UserDao shard = shardFor(id);
+        return shard == null ? null : shard.findById(id);
+    }
+
+    // id раскладываются по шардам, шарды опрашиваются параллельно, порядок входа восстанавливается
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        int[][] byShard = splitByShard(ids);
+        List<CompletableFuture<List<User>>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            UserDao shard = shards.get(i);
+            int[] part = byShard[i];
+            futures.add(part.length == 0
+                    ? CompletableFuture.completedFuture(List.of())
+                    : CompletableFuture.supplyAsync(() -> shard.findAllByIds(part), executor));
+        }
+        Map<Integer, User> loaded = new HashMap<>();
+        for (CompletableFuture<List<User>> future : futures) join(future).forEach(user -> loaded.put(user.getId(), user));
+        List<User> found = new ArrayList<>(loaded.size());
+        for (int id : ids) {
+            User user = loaded.remove(id);
+            if (user != null) found.add(user);
+        }
+        return found;
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return shards.get(shardForEmail(email)).findByEmail(email);
+    }
+
+    // диапазоны id не пересекаются: достаточно первых limit строк после слияния по id
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return mergeSorted(fanOut(shard -> shard.findByNamePrefix(prefix, afterId, limit)), Comparator.comparingInt(User::getId), limit);
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> all = new ArrayList<>();
+        fanOut(UserDao::findAll).forEach(all::addAll);
+        return all;
+    }
+
+    // курсоры всех шардов открываются сразу и читаются фоновыми потоками, каждый - в свою очередь до fetchSize строк;
+    // вызывающий забирает очереди шард за шардом, поэтому порядок id сохраняется, а следующий шард
+    // уже подгружен к концу текущего. close() останавливает чтение, курсоры закрываются в своих потоках
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        ThreadFactory threads = VirtualThreads.daemonThreads("shard-stream");
+        List<ShardCursor> cursors = new ArrayList<>(shards.size());
+        for (UserDao shard : shards) {
+            ShardCursor cursor = new ShardCursor(shard, fetchSize);
+            cursors.add(cursor);
+            threads.newThread(cursor).start();
+        }
+        return cursors.stream().flatMap(ShardCursor::rows).onClose(() -> cursors.forEach(ShardCursor::cancel));
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return pageAcrossShards(afterId, limit, UserDao::findPage, User::getId);
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        UserDao shard = shardFor(id);
+        return shard == null ? null : shard.findViewById(id);
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return pageAcrossShards(afterId, limit, UserDao::findViewPage, UserView::getId);
+    }
+
+    // каждый шард отдаёт свою первую страницу, затем k-way слияние в порядке сортировки запроса.
+    // Сортировка по name сравнивается в Java (String.compareTo) - совпадает с БД при COLLATE "C".
+    @Override
+    public List<User> search(UserQuery query) {
+        return mergeSorted(fanOut(shard -> shard.search(query)), query.comparator(), query.getLimit());
+    }
+
+    @Override
+    public long count() {
+        return fanOut(UserDao::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        SortedMap<Integer, Long> merged = new TreeMap<>();
+        fanOut(shard -> shard.ageHistogram(bucketWidth)).forEach(part -> part.forEach((k, v) -> merged.merge(k, v, Long::sum)));
+        return merged;
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        SortedMap<LocalDate, Long> merged = new TreeMap<>();
+        fanOut(shard -> shard.signupsPer(bucket)).forEach(part -> part.forEach((k, v) -> merged.merge(k, v, Long::sum)));
+        return merged;
+    }
+
+    @Override
+    public void update(User user) {
+        checkEmailStaysOnShard(user.getId(), user.getEmail());
+        requireShard(user.getId()).update(user);
+    }
+
+    @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age) {
+        UserDao shard = shardFor(id);
+        if (shard == null) return null;
+        if (email != null) checkEmailStaysOnShard(id, email);
+        return shard.updateFields(id, expectedVersion, name, email, age);
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return fanOut(shard -> shard.updateWhere(criteria, name, age)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public void delete(User user) {
+        requireShard(user.getId()).delete(user);
+    }
+
+    @Override
+    public User deleteById(int id) {
+        UserDao shard = shardFor(id);
+        return shard == null ? null : shard.deleteById(id);
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        int[][] byShard = splitByShard(ids);
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            UserDao shard = shards.get(i);
+            int[] part = byShard[i];
+            if (part.length > 0) futures.add(CompletableFuture.supplyAsync(() -> shard.deleteByIds(part), executor));
+        }
+        int deleted = 0;
+        for (CompletableFuture<Integer> future : futures) deleted += join(future);
+        return deleted;
+    }
+
+    // каждый шард выполняет свой оператор в своей транзакции: атомарности между шардами нет
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return fanOut(shard -> shard.deleteWhere(criteria)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private UserDao shardFor(int id) {
+        int shard = shardOf(id);
+        return id > 0 && shard < shards.size() ? shards.get(shard) : null;
+    }
+
+    // id без шарда отбрасываются, порядок внутри шарда сохраняется
+    private int[][] splitByShard(int[] ids) {
+        int[] perShard = new int[shards.size()];
+        for (int id : ids) {
+            if (shardFor(id) != null) perShard[shardOf(id)]++;
+        }
+        int[][] byShard = new int[shards.size()][];
+        for (int i = 0; i < shards.size(); i++) byShard[i] = new int[perShard[i]];
+        int[] fill = new int[shards.size()];
+        for (int id : ids) {
+            if (shardFor(id) != null) byShard[shardOf(id)][fill[shardOf(id)]++] = id;
+        }
+        return byShard;
+    }
+
+    private UserDao requireShard(int id) {
+        UserDao shard = shardFor(id);
+        if (shard == null) throw new IllegalArgumentException("ID=" + id + " не принадлежит ни одному шарду");
+        return shard;
+    }
+
+    // перенос строки между шардами сменил бы id, поэтому смена email допускается только в пределах шарда
+    private void checkEmailStaysOnShard(int id, String email) {
+        if (shardForEmail(email) != shardOf(id)) {
+            throw new IllegalArgumentException("Новый email пользователя ID=" + id + " относится к другому шарду: смена email с переносом между шардами не поддерживается");
+        }
+    }
+
+    private static void checkIdRange(User user, int shard) {
+        if (shardOf(user.getId()) != shard) throw idOutOfRange(user.getId(), shard);
+    }
+
+    private static IllegalStateException idOutOfRange(int id, int shard) {
+        return new IllegalStateException("Шард " + shard + " выдал ID=" + id + " вне своего диапазона: проверьте последовательность (" + sequenceDdl(shard) + ")");
+    }
+
+    private static void checkSequence(SessionFactory sessionFactory, int shard) {
+        long base = (long) shard << SHARD_SHIFT;
+        long max = base + (1L << SHARD_SHIFT) - 1;
+        try (Session session = sessionFactory.openSession()) {
+            Tuple range = session.createNativeQuery(
+                    "SELECT seqmin, seqmax FROM pg_sequence WHERE seqrelid = CAST(:sequence AS regclass)", Tuple.class)
+                    .setParameter("sequence", User.ID_SEQUENCE)
+                    .getSingleResult();
+            long seqMin = range.get("seqmin", Number.class).longValue();
+            long seqMax = range.get("seqmax", Number.class).longValue();
+            if (seqMin < base + 1 || seqMax > max) {
+                throw new IllegalStateException("Последовательность шарда " + shard + " выдаёт значения [" + seqMin + ", " + seqMax
+                        + "] вне диапазона [" + (base + 1) + ", " + max + "]: выполните " + sequenceDdl(shard));
+            }
+        }
+    }
+
+    // страница с afterId начинается в его шарде и продолжается в следующих, пока не наберётся limit
+    private <T> List<T> pageAcrossShards(int afterId, int limit, PageLoader<T> loader, Function<T, Integer> idOf) {
+        List<T> page = new ArrayList<>(limit);
+        int cursor = afterId;
+        for (int shard = Math.max(0, shardOf(Math.max(afterId, 0))); shard < shards.size() && page.size() < limit; shard++) {
+            List<T> part = loader.load(shards.get(shard), cursor, limit - page.size());
+            page.addAll(part);
+            if (!part.isEmpty()) cursor = idOf.apply(part.get(part.size() - 1));
+        }
+        return page;
+    }
+
+    private <T> List<T> fanOut(Function<UserDao, T> operation) {
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> operation.apply(shard), executor))
+                .collect(Collectors.toList());
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) results.add(join(future));
+        return results;
+    }
+
+    private static List<User> mergeSorted(List<List<User>> parts, Comparator<User> order, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.current(), b.current()));
+        for (List<User> part : parts) if (!part.isEmpty()) heads.add(new Cursor(part));
+        List<User> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor head = heads.poll();
+            merged.add(head.current());
+            if (head.advance()) heads.add(head);
+        }
+        return merged;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private interface PageLoader<T> {
+        List<T> load(UserDao shard, int afterId, int limit);
+    }
+
+    private static final class Cursor {
+        private final List<User> users;
+        private int index;
+
+        private Cursor(List<User> users) {
+            this.users = users;
+        }
+
+        User current() {
+            return users.get(index);
+        }
+
+        boolean advance() {
+            return ++index < users.size();
+        }
+    }
+
+    // Курсор одного шарда в фоновом потоке: строки передаются через ограниченную очередь,
+    // за ними - END или ошибка чтения. После cancel() поток перестаёт ждать места в очереди и закрывает курсор
+    private static final class ShardCursor implements Runnable {
+        private static final Object END = new Object();
+        private static final long HANDOFF_POLL_MS = 100;
+
+        private final UserDao shard;
+        private final int fetchSize;
+        private final BlockingQueue<Object> queue;
+        private volatile boolean cancelled;
+
+        private ShardCursor(UserDao shard, int fetchSize) {
+            this.shard = shard;
+            this.fetchSize = fetchSize;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, fetchSize));
+        }
+
+        @Override
+        public void run() {
+            try (Stream<User> stream = shard.streamAll(fetchSize)) {
+                Iterator<User> it = stream.iterator();
+                while (it.hasNext()) {
+                    if (!handOff(it.next())) return;
+                }
+            } catch (RuntimeException ex) {
+                handOff(ex);
+                return;
+            }
+            handOff(END);
+        }
+
+        private boolean handOff(Object item) {
+            try {
+                while (!cancelled) {
+                    if (queue.offer(item, HANDOFF_POLL_MS, TimeUnit.MILLISECONDS)) return true;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        Stream<User> rows() {
+            Spliterator<User> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                private boolean done;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super User> action) {
+                    if (done) return false;
+                    Object item;
+                    try {
+                        item = queue.take();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Чтение шарда прервано", ex);
+                    }
+                    if (item == END) {
+                        done = true;
+                        return false;
+                    }
+                    if (item instanceof RuntimeException) {
+                        done = true;
+                        throw (RuntimeException) item;
+                    }
+                    action.accept((User) item);
+                    return true;
+                }
+            };
+            return StreamSupport.stream(rows, false);
+        }
+
+        void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+    }
+}
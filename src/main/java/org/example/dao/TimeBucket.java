@@ -0,0 +1,26 @@
+package org.example.dao;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// Гранулярность группировки по дате регистрации (date_trunc в UTC)
+public enum TimeBucket {
+    DAY("day"),
+    WEEK("week");
+
+    private final String sqlUnit;
+
+    TimeBucket(String sqlUnit) {
+        this.sqlUnit = sqlUnit;
+    }
+
+    String sqlUnit() {
+        return sqlUnit;
+    }
+
+    // то же, что date_trunc: неделя начинается с понедельника
+    LocalDate truncate(LocalDate date) {
+        return this == WEEK ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : date;
+    }
+}
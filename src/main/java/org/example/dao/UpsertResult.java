@@ -0,0 +1,41 @@
+package org.example.dao;
+
+import org.example.model.User;
+
+import java.util.Collections;
+import java.util.List;
+
+// Итог upsert по email: строки в порядке входа (по одной на email) и сколько из них вставлено,
+// обновлено или совпало с уже сохранёнными (такие строки не перезаписываются и не меняют version)
+public class UpsertResult {
+    private final List<User> users;
+    private final int inserted;
+    private final int updated;
+
+    UpsertResult(List<User> users, int inserted, int updated) {
+        this.users = Collections.unmodifiableList(users);
+        this.inserted = inserted;
+        this.updated = updated;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getUnchanged() {
+        return users.size() - inserted - updated;
+    }
+
+    @Override
+    public String toString() {
+        return "inserted=" + inserted + ", updated=" + updated + ", unchanged=" + getUnchanged();
+    }
+}
@@ -1,12 +1,46 @@
 package org.example.dao;
 
 import org.example.model.User;
+import org.example.model.UserView;
+
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Stream;
 
 public interface UserDao {
     void create(User user);
+    BatchResult createAll(Collection<User> users);
+    // INSERT ... ON CONFLICT (email) DO UPDATE: новые email вставляются, у существующих меняются name и age.
+    // Повторы email во входе схлопываются (побеждает последний), всё - в одной транзакции
+    UpsertResult upsertByEmail(Collection<User> users);
     User findById(int id);
+    // найденные пользователи в порядке первого упоминания id; отсутствующие и повторы пропускаются
+    List<User> findAllByIds(int[] ids);
+    User findByEmail(String email);
+    List<User> findByNamePrefix(String prefix, int afterId, int limit);
     List<User> findAll();
+    Stream<User> streamAll(int fetchSize);
+    List<User> findPage(int afterId, int limit);
+    // только чтение: проекции через StatelessSession, без контекста персистентности и dirty checking
+    UserView findViewById(int id);
+    List<UserView> findViewPage(int afterId, int limit);
+    List<User> search(UserQuery query);
+    long count();
+    // ключ - нижняя граница корзины возраста: 0, width, 2*width, ...
+    SortedMap<Integer, Long> ageHistogram(int bucketWidth);
+    // ключ - первый день корзины (для WEEK - понедельник), UTC
+    SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket);
     void update(User user);
+    // UPDATE ... RETURNING только изменённых столбцов; null-поля не меняются, expectedVersion == null - без проверки версии
+    User updateFields(int id, Integer expectedVersion, String name, String email, Integer age);
+    // один UPDATE по фильтрам criteria (сортировка, курсор и limit не учитываются); null-поля не меняются,
+    // строки, где значения уже совпадают, не перезаписываются. Возвращает число изменённых строк
+    int updateWhere(UserQuery criteria, String name, Integer age);
     void delete(User user);
+    User deleteById(int id);
+    // DELETE ... WHERE id IN (...) пакетами в одной транзакции; возвращает число удалённых строк
+    int deleteByIds(int[] ids);
+    int deleteWhere(UserQuery criteria);
 }
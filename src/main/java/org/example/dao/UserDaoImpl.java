@@ -1,18 +1,61 @@
 package org.example.dao;
 
 import org.example.model.User;
+import org.example.model.UserView;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.hibernate.type.BooleanType;
 
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import javax.persistence.Tuple;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class UserDaoImpl implements UserDao {
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    // размер IN-списка multiLoad: 500 id - один запрос на типичный пакет вызывающих
+    private static final int MULTI_LOAD_BATCH_SIZE = 500;
+    // id на один DELETE ... IN: список не упирается в лимит параметров JDBC и не раздувает план
+    private static final int BULK_ID_CHUNK_SIZE = 1000;
+    private static final int PING_TIMEOUT_SECONDS = 2;
+    private static final String VIEW_SELECT =
+            "SELECT new org.example.model.UserView(u.id, u.name, u.email, u.age, u.createdAt, u.version) FROM User u";
     private final SessionFactory sessionFactory;
+    private final int batchSize;
+    // регион natural id есть только при включённом кэше второго уровня
+    private final boolean naturalIdCached;
 
     public UserDaoImpl(SessionFactory sessionFactory) {
+        // по умолчанию берём hibernate.jdbc.batch_size из конфигурации
+        this(sessionFactory, configuredBatchSize(sessionFactory));
+    }
+
+    public UserDaoImpl(SessionFactory sessionFactory, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Размер пакета должен быть положительным: " + batchSize);
         this.sessionFactory = sessionFactory;
+        this.batchSize = batchSize;
+        this.naturalIdCached = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
     }
     @Override
     public void create(User user){
@@ -26,6 +69,68 @@ public class UserDaoImpl implements UserDao {
             throw ex;
         }
     }
+    @Override
+    public BatchResult createAll(Collection<User> users){
+        BatchResult result = new BatchResult();
+        List<User> batch = new ArrayList<>(batchSize);
+        int batchIndex = 0;
+        Session session = openBatchSession();
+        try {
+            for (User user : users) {
+                batch.add(user);
+                if (batch.size() == batchSize) {
+                    session = insertBatch(session, batch, batchIndex++, result);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) session = insertBatch(session, batch, batchIndex, result);
+        } finally {
+            session.close();
+        }
+        return result;
+    }
+    // Один INSERT ... ON CONFLICT на пакет вместо поиска по email и create/update в разных сессиях:
+    // гонка параллельных синхронизаций решается уникальным индексом. id для новых строк берутся
+    // из того же пула последовательности, что и у session.save; у конфликтующих строк id пропадает.
+    // Строки без изменений не перезаписываются (WHERE ... IS DISTINCT FROM) и дочитываются одним SELECT.
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users){
+        Map<String, User> byEmail = new LinkedHashMap<>();
+        for (User user : users) byEmail.put(user.getEmail(), user);
+        // одинаковый порядок блокировок строк у параллельных пакетов - без взаимоблокировок
+        List<User> rows = new ArrayList<>(byEmail.values());
+        rows.sort(Comparator.comparing(User::getEmail, Comparator.nullsFirst(Comparator.naturalOrder())));
+        Map<String, User> stored = new HashMap<>();
+        int[] counts = new int[2];
+
+        Session session = sessionFactory.openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                upsertBatch(session, rows.subList(from, Math.min(rows.size(), from + batchSize)), stored, counts);
+            }
+            List<String> unchanged = new ArrayList<>();
+            for (String email : byEmail.keySet()) if (!stored.containsKey(email)) unchanged.add(email);
+            if (!unchanged.isEmpty()) {
+                session.createNativeQuery("SELECT * FROM Users WHERE email IN (:emails)", User.class)
+                        .setParameterList("emails", unchanged)
+                        .getResultList()
+                        .forEach(user -> stored.put(user.getEmail(), user));
+            }
+            tx.commit();
+        }catch (PersistenceException ex){
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        }finally {
+            session.close();
+        }
+        if (counts[1] > 0) sessionFactory.getCache().evictEntityData(User.class);
+        List<User> result = new ArrayList<>(byEmail.size());
+        for (String email : byEmail.keySet()) result.add(stored.get(email));
+        return new UpsertResult(result, counts[0], counts[1]);
+    }
+
     @Override
     public List<User> findAll(){
         try(Session session = sessionFactory.openSession()) {
@@ -34,6 +139,64 @@ public class UserDaoImpl implements UserDao {
             throw ex;
         }
     }
+    // Поток держит открытыми сессию и серверный курсор - вызывающий обязан закрыть его (try-with-resources)
+    @Override
+    public Stream<User> streamAll(int fetchSize){
+        Session session = sessionFactory.openSession();
+        try {
+            session.setDefaultReadOnly(true);
+            // PostgreSQL использует курсор с fetchSize только внутри транзакции
+            Transaction tx = session.beginTransaction();
+            return session.createQuery("FROM User u ORDER BY u.id", User.class)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .stream()
+                    .peek(session::detach)
+                    .onClose(() -> {
+                        try {
+                            if (tx.isActive()) tx.rollback();
+                        } finally {
+                            session.close();
+                        }
+                    });
+        }catch (HibernateException ex){
+            session.close();
+            throw ex;
+        }
+    }
+    @Override
+    public List<User> findPage(int afterId, int limit){
+        try(Session session = sessionFactory.openSession()) {
+            return session.createQuery("FROM User u WHERE u.id > :afterId ORDER BY u.id", User.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(limit)
+                    .setReadOnly(true)
+                    .getResultList();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    @Override
+    public UserView findViewById(int id){
+        try(StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createQuery(VIEW_SELECT + " WHERE u.id = :id", UserView.class)
+                    .setParameter("id", id)
+                    .uniqueResult();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit){
+        try(StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createQuery(VIEW_SELECT + " WHERE u.id > :afterId ORDER BY u.id", UserView.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
     @Override
     public User findById(int id){
         try(Session session = sessionFactory.openSession()) {
@@ -42,6 +205,123 @@ public class UserDaoImpl implements UserDao {
             throw ex;
         }
     }
+    // multiLoad: сначала кэш второго уровня, остальные id - запросами WHERE id IN (...) по MULTI_LOAD_BATCH_SIZE
+    @Override
+    public List<User> findAllByIds(int[] ids){
+        List<Integer> distinct = Arrays.stream(ids).distinct().boxed().collect(Collectors.toList());
+        try(Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            List<User> loaded = session.byMultipleIds(User.class)
+                    .withBatchSize(MULTI_LOAD_BATCH_SIZE)
+                    .enableOrderedReturn(true)
+                    .multiLoad(distinct);
+            List<User> found = new ArrayList<>(loaded.size());
+            for (User user : loaded) if (user != null) found.add(user);
+            return found;
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    // с кэшем второго уровня - загрузка по natural id: повторный поиск email отвечается из кэша без SQL;
+    // без кэша она стоила бы двух запросов (email -> id, затем строка), поэтому один SELECT по уникальному индексу
+    @Override
+    public User findByEmail(String email){
+        try(Session session = sessionFactory.openSession()) {
+            if (naturalIdCached) {
+                return session.byNaturalId(User.class).using("email", User.normalizeEmail(email)).load();
+            }
+            return session.createQuery("FROM User u WHERE u.email = :email", User.class)
+                    .setParameter("email", User.normalizeEmail(email))
+                    .uniqueResult();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit){
+        String pattern = prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        try(Session session = sessionFactory.openSession()) {
+            return session.createQuery("FROM User u WHERE u.name LIKE :pattern ESCAPE '!' AND u.id > :afterId ORDER BY u.id", User.class)
+                    .setParameter("pattern", pattern)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(limit)
+                    .setReadOnly(true)
+                    .getResultList();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    // Один параметризованный запрос: только заданные предикаты + keyset по (поле сортировки, id)
+    @Override
+    public List<User> search(UserQuery q){
+        StringBuilder hql = new StringBuilder("FROM User u");
+        appendFilters(hql, q);
+        String sortPath = q.getSortField().path();
+        String cmp = q.isDescending() ? " < " : " > ";
+        if (q.getAfterId() != null) {
+            if (q.getSortField() == UserQuery.SortField.ID) {
+                hql.append(" AND u.id").append(cmp).append(":afterId");
+            } else {
+                // сравнение кортежей использует составной индекс (поле, id)
+                hql.append(" AND (").append(sortPath).append(", u.id)").append(cmp).append("(:afterValue, :afterId)");
+            }
+        }
+        String direction = q.isDescending() ? " DESC" : "";
+        hql.append(" ORDER BY ");
+        if (q.getSortField() != UserQuery.SortField.ID) hql.append(sortPath).append(direction).append(", ");
+        hql.append("u.id").append(direction);
+
+        try(Session session = sessionFactory.openSession()) {
+            Query<User> query = session.createQuery(hql.toString(), User.class)
+                    .setMaxResults(q.getLimit())
+                    .setReadOnly(true);
+            bindFilters(query, q);
+            if (q.getAfterId() != null) {
+                query.setParameter("afterId", q.getAfterId());
+                if (q.getSortField() != UserQuery.SortField.ID) query.setParameter("afterValue", q.getAfterValue());
+            }
+            return query.getResultList();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    @Override
+    public long count(){
+        try(Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT count(u) FROM User u", Long.class).getSingleResult();
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth){
+        if (bucketWidth < 1) throw new IllegalArgumentException("Ширина корзины должна быть положительной: " + bucketWidth);
+        try(Session session = sessionFactory.openSession()) {
+            List<Tuple> rows = session.createNativeQuery(
+                    "SELECT (age / :width) * :width AS bucket, count(*) AS users FROM Users GROUP BY 1 ORDER BY 1", Tuple.class)
+                    .setParameter("width", bucketWidth)
+                    .getResultList();
+            SortedMap<Integer, Long> histogram = new TreeMap<>();
+            for (Tuple row : rows) histogram.put(row.get("bucket", Number.class).intValue(), row.get("users", Number.class).longValue());
+            return histogram;
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket){
+        // единица date_trunc берётся из enum, не из пользовательского ввода
+        String sql = "SELECT CAST(date_trunc('" + bucket.sqlUnit() + "', created_at AT TIME ZONE 'UTC') AS date) AS bucket, count(*) AS users"
+                + " FROM Users WHERE created_at IS NOT NULL GROUP BY 1 ORDER BY 1";
+        try(Session session = sessionFactory.openSession()) {
+            List<Tuple> rows = session.createNativeQuery(sql, Tuple.class).getResultList();
+            SortedMap<LocalDate, Long> signups = new TreeMap<>();
+            for (Tuple row : rows) signups.put(row.get("bucket", java.sql.Date.class).toLocalDate(), row.get("users", Number.class).longValue());
+            return signups;
+        }catch (HibernateException ex){
+            throw ex;
+        }
+    }
     @Override
     public void update(User user){
         Transaction tx = null;
@@ -55,6 +335,41 @@ public class UserDaoImpl implements UserDao {
         }
     }
     @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age){
+        StringBuilder sql = new StringBuilder("UPDATE Users SET version = version + 1");
+        if (name != null) sql.append(", name = :name");
+        if (email != null) sql.append(", email = :email");
+        if (age != null) sql.append(", age = :age");
+        sql.append(" WHERE id = :id");
+        if (expectedVersion != null) sql.append(" AND version = :version");
+        sql.append(" RETURNING *");
+
+        Session session = sessionFactory.openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            NativeQuery<User> query = session.createNativeQuery(sql.toString(), User.class)
+                    .setParameter("id", id);
+            if (name != null) query.setParameter("name", name);
+            if (email != null) query.setParameter("email", email);
+            if (age != null) query.setParameter("age", age);
+            if (expectedVersion != null) query.setParameter("version", expectedVersion);
+            List<User> updated = query.getResultList();
+            // конфликт версий отличаем от отсутствия строки только на неуспешном пути
+            if (updated.isEmpty() && expectedVersion != null && exists(session, id)) {
+                throw new OptimisticLockException("Пользователь с ID=" + id + " был изменён другим пользователем (ожидалась версия " + expectedVersion + ")");
+            }
+            tx.commit();
+            evictFromSecondLevelCache(id);
+            return updated.isEmpty() ? null : updated.get(0);
+        }catch (PersistenceException ex){
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        }finally {
+            session.close();
+        }
+    }
+    @Override
     public void delete(User user){
         Transaction tx = null;
         try(Session session = sessionFactory.openSession()){
@@ -68,5 +383,195 @@ public class UserDaoImpl implements UserDao {
 
     }
 
+    @Override
+    public User deleteById(int id){
+        Session session = sessionFactory.openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            List<User> deleted = session.createNativeQuery("DELETE FROM Users WHERE id = :id RETURNING *", User.class)
+                    .setParameter("id", id)
+                    .getResultList();
+            tx.commit();
+            evictFromSecondLevelCache(id);
+            return deleted.isEmpty() ? null : deleted.get(0);
+        }catch (PersistenceException ex){
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        }finally {
+            session.close();
+        }
+    }
+
+    // затронутые строки неизвестны: после фиксации регион User в кэше второго уровня сбрасывается целиком (executeBulk)
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age){
+        if (name == null && age == null) return 0;
+        StringBuilder hql = new StringBuilder("UPDATE User u SET u.version = u.version + 1");
+        if (name != null) hql.append(", u.name = :name");
+        if (age != null) hql.append(", u.age = :age");
+        appendFilters(hql, criteria);
+        // строки, где значения уже совпадают, не перезаписываются: без лишних версий строк и WAL
+        hql.append(" AND (");
+        if (name != null) hql.append("u.name <> :name");
+        if (name != null && age != null) hql.append(" OR ");
+        if (age != null) hql.append("u.age <> :age");
+        hql.append(")");
+        return executeBulk(session -> {
+            Query<?> query = session.createQuery(hql.toString());
+            if (name != null) query.setParameter("name", name);
+            if (age != null) query.setParameter("age", age);
+            bindFilters(query, criteria);
+            return query.executeUpdate();
+        });
+    }
+    @Override
+    public int deleteByIds(int[] ids){
+        if (ids.length == 0) return 0;
+        return executeBulk(session -> {
+            Query<?> query = session.createQuery("DELETE FROM User u WHERE u.id IN (:ids)");
+            int deleted = 0;
+            for (int from = 0; from < ids.length; from += BULK_ID_CHUNK_SIZE) {
+                int[] chunk = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + BULK_ID_CHUNK_SIZE));
+                deleted += query.setParameterList("ids", Arrays.stream(chunk).boxed().collect(Collectors.toList())).executeUpdate();
+            }
+            return deleted;
+        });
+    }
+    @Override
+    public int deleteWhere(UserQuery criteria){
+        StringBuilder hql = new StringBuilder("DELETE FROM User u");
+        appendFilters(hql, criteria);
+        return executeBulk(session -> {
+            Query<?> query = session.createQuery(hql.toString());
+            bindFilters(query, criteria);
+            return query.executeUpdate();
+        });
+    }
 
+    // доступность БД за этой фабрикой: для маршрутизации чтения на реплику
+    public boolean ping(){
+        try(StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.createNativeQuery("SELECT 1").setTimeout(PING_TIMEOUT_SECONDS).getSingleResult();
+            return true;
+        }catch (RuntimeException ex){
+            return false;
+        }
+    }
+
+    private int executeBulk(Function<Session, Integer> statements){
+        Session session = sessionFactory.openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            int affected = statements.apply(session);
+            tx.commit();
+            sessionFactory.getCache().evictEntityData(User.class);
+            sessionFactory.getCache().evictNaturalIdData(User.class);
+            return affected;
+        }catch (PersistenceException ex){
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        }finally {
+            session.close();
+        }
+    }
+
+    // общий WHERE для search и массовых операций
+    private static void appendFilters(StringBuilder hql, UserQuery q){
+        hql.append(" WHERE 1 = 1");
+        if (q.getMinAge() != null) hql.append(" AND u.age >= :minAge");
+        if (q.getMaxAge() != null) hql.append(" AND u.age <= :maxAge");
+        if (q.getCreatedFrom() != null) hql.append(" AND u.createdAt >= :createdFrom");
+        if (q.getCreatedTo() != null) hql.append(" AND u.createdAt < :createdTo");
+        if (q.getNamePattern() != null) hql.append(" AND u.name LIKE :namePattern");
+        if (q.getEmailPattern() != null) hql.append(" AND u.email LIKE :emailPattern");
+    }
+
+    private static void bindFilters(Query<?> query, UserQuery q){
+        if (q.getMinAge() != null) query.setParameter("minAge", q.getMinAge());
+        if (q.getMaxAge() != null) query.setParameter("maxAge", q.getMaxAge());
+        if (q.getCreatedFrom() != null) query.setParameter("createdFrom", q.getCreatedFrom());
+        if (q.getCreatedTo() != null) query.setParameter("createdTo", q.getCreatedTo());
+        if (q.getNamePattern() != null) query.setParameter("namePattern", q.getNamePattern());
+        if (q.getEmailPattern() != null) query.setParameter("emailPattern", q.getEmailPattern());
+    }
+
+    private static boolean exists(Session session, int id){
+        Number count = (Number) session.createNativeQuery("SELECT count(*) FROM Users WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+        return count.longValue() > 0;
+    }
+
+    // нативные запросы не синхронизируются с кэшем второго уровня автоматически
+    private void evictFromSecondLevelCache(int id){
+        sessionFactory.getCache().evictEntityData(User.class, id);
+        sessionFactory.getCache().evictNaturalIdData(User.class);
+    }
+
+    // Каждый пакет фиксируется своей транзакцией: ошибка в одном пакете не откатывает уже вставленные.
+    // После ошибки сессия непригодна, поэтому возвращаем новую.
+    private Session insertBatch(Session session, List<User> batch, int batchIndex, BatchResult result){
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            for (User user : batch) session.save(user);
+            session.flush();
+            tx.commit();
+            session.clear();
+            result.addInserted(batch.size());
+            return session;
+        } catch (PersistenceException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            batch.forEach(user -> user.setId(0));
+            result.addFailure(batchIndex, batch, ex);
+            session.close();
+            return openBatchSession();
+        }
+    }
+
+    // counts[0] - вставлено, counts[1] - обновлено; xmax = 0 только у строк, вставленных этим запросом
+    private void upsertBatch(Session session, List<User> batch, Map<String, User> stored, int[] counts){
+        IdentifierGenerator ids = ((SessionFactoryImplementor) sessionFactory).getMetamodel()
+                .entityPersister(User.class).getIdentifierGenerator();
+        StringBuilder sql = new StringBuilder("INSERT INTO Users (id, name, email, age, created_at, version) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:id").append(i).append(", :name").append(i).append(", :email").append(i)
+                    .append(", :age").append(i).append(", :createdAt").append(i).append(", 0)");
+        }
+        sql.append(" ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name, age = EXCLUDED.age, version = Users.version + 1")
+                .append(" WHERE (Users.name, Users.age) IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.age)")
+                .append(" RETURNING Users.*, (Users.xmax = 0) AS inserted");
+
+        NativeQuery<?> query = session.createNativeQuery(sql.toString())
+                .addEntity(User.class)
+                .addScalar("inserted", BooleanType.INSTANCE);
+        for (int i = 0; i < batch.size(); i++) {
+            User user = batch.get(i);
+            query.setParameter("id" + i, ids.generate((SharedSessionContractImplementor) session, user));
+            query.setParameter("name" + i, user.getName());
+            query.setParameter("email" + i, user.getEmail());
+            query.setParameter("age" + i, user.getAge());
+            query.setParameter("createdAt" + i, user.getCreatedAt());
+        }
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            User user = (User) columns[0];
+            stored.put(user.getEmail(), user);
+            counts[Boolean.TRUE.equals(columns[1]) ? 0 : 1]++;
+        }
+    }
+
+    private Session openBatchSession(){
+        Session session = sessionFactory.openSession();
+        session.setJdbcBatchSize(batchSize);
+        return session;
+    }
+
+    private static int configuredBatchSize(SessionFactory sessionFactory){
+        int configured = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize();
+        return configured > 0 ? configured : DEFAULT_BATCH_SIZE;
+    }
 }
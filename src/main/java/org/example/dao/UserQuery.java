@@ -0,0 +1,231 @@
+package org.example.dao;
+
+import org.example.model.User;
+
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+
+// Критерии поиска пользователей. Пустые (null) критерии не участвуют в запросе.
+// Постраничность - keyset: after(последний пользователь предыдущей страницы).
+public class UserQuery {
+    public enum SortField {
+        ID("u.id"),
+        NAME("u.name"),
+        AGE("u.age"),
+        CREATED_AT("u.createdAt");
+
+        private final String path;
+
+        SortField(String path) {
+            this.path = path;
+        }
+
+        String path() {
+            return path;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Comparator<User> comparator() {
+            if (this == ID) return Comparator.comparingInt(User::getId);
+            Comparator<User> byValue = Comparator.comparing(u -> (Comparable) valueOf(u), Comparator.nullsLast(Comparator.naturalOrder()));
+            return byValue.thenComparingInt(User::getId);
+        }
+
+        Object valueOf(User user) {
+            switch (this) {
+                case NAME: return user.getName();
+                case AGE: return user.getAge();
+                case CREATED_AT: return user.getCreatedAt();
+                default: return user.getId();
+            }
+        }
+    }
+
+    public static final int DEFAULT_LIMIT = 20;
+
+    private Integer minAge;
+    private Integer maxAge;
+    private OffsetDateTime createdFrom;
+    private OffsetDateTime createdTo;
+    private String namePattern;
+    private String emailPattern;
+    private Pattern nameRegex;
+    private Pattern emailRegex;
+    private SortField sortField = SortField.ID;
+    private boolean descending;
+    private Integer afterId;
+    private Object afterValue;
+    private int limit = DEFAULT_LIMIT;
+
+    // возраст в диапазоне [min, max], любая граница может быть null
+    public UserQuery age(Integer min, Integer max) {
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException("Минимальный возраст больше максимального: " + min + " > " + max);
+        }
+        this.minAge = min;
+        this.maxAge = max;
+        return this;
+    }
+
+    // дата регистрации в полуинтервале [from, to)
+    public UserQuery createdBetween(OffsetDateTime from, OffsetDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Пустой интервал дат: " + from + " - " + to);
+        }
+        this.createdFrom = from;
+        this.createdTo = to;
+        return this;
+    }
+
+    // шаблоны LIKE: % - любая последовательность, _ - один символ; 'Ann%' использует индекс по префиксу
+    public UserQuery nameLike(String pattern) {
+        this.namePattern = blankToNull(pattern);
+        this.nameRegex = likeToRegex(namePattern);
+        return this;
+    }
+
+    public UserQuery emailLike(String pattern) {
+        this.emailPattern = User.normalizeEmail(blankToNull(pattern));
+        this.emailRegex = likeToRegex(emailPattern);
+        return this;
+    }
+
+    public UserQuery sortBy(SortField field, boolean descending) {
+        if (field == null) throw new IllegalArgumentException("Поле сортировки не указано");
+        this.sortField = field;
+        this.descending = descending;
+        this.afterId = null;
+        this.afterValue = null;
+        return this;
+    }
+
+    // курсор: следующая страница начинается строго после lastSeen в порядке сортировки
+    public UserQuery after(User lastSeen) {
+        if (lastSeen == null) {
+            this.afterId = null;
+            this.afterValue = null;
+            return this;
+        }
+        Object value = sortField.valueOf(lastSeen);
+        if (value == null) throw new IllegalArgumentException("У пользователя ID=" + lastSeen.getId() + " не заполнено поле сортировки " + sortField);
+        this.afterId = lastSeen.getId();
+        this.afterValue = value;
+        return this;
+    }
+
+    public UserQuery limit(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        this.limit = limit;
+        return this;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public OffsetDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public OffsetDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public String getNamePattern() {
+        return namePattern;
+    }
+
+    public String getEmailPattern() {
+        return emailPattern;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Integer getAfterId() {
+        return afterId;
+    }
+
+    public Object getAfterValue() {
+        return afterValue;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // порядок выдачи search: для слияния результатов нескольких источников
+    Comparator<User> comparator() {
+        Comparator<User> order = sortField.comparator();
+        return descending ? order.reversed() : order;
+    }
+
+    // задан ли хоть один фильтр; сортировка, курсор и limit не считаются
+    public boolean hasFilters() {
+        return minAge != null || maxAge != null || createdFrom != null || createdTo != null
+                || namePattern != null || emailPattern != null;
+    }
+
+    // те же условия, что WHERE в UserDaoImpl.search, для хранилищ без SQL; null в поле не проходит фильтр, как в SQL
+    boolean matches(User user) {
+        return matchesFilters(user) && (afterId == null || isAfterCursor(user));
+    }
+
+    // только фильтры, без курсора: для массовых updateWhere/deleteWhere
+    boolean matchesFilters(User user) {
+        if (minAge != null && user.getAge() < minAge) return false;
+        if (maxAge != null && user.getAge() > maxAge) return false;
+        if (createdFrom != null && (user.getCreatedAt() == null || user.getCreatedAt().isBefore(createdFrom))) return false;
+        if (createdTo != null && (user.getCreatedAt() == null || !user.getCreatedAt().isBefore(createdTo))) return false;
+        if (nameRegex != null && (user.getName() == null || !nameRegex.matcher(user.getName()).matches())) return false;
+        return emailRegex == null || (user.getEmail() != null && emailRegex.matcher(user.getEmail()).matches());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private boolean isAfterCursor(User user) {
+        Object value = sortField.valueOf(user);
+        if (value == null) return false;
+        int cmp = ((Comparable) value).compareTo(afterValue);
+        if (cmp == 0) cmp = Integer.compare(user.getId(), afterId);
+        return descending ? cmp < 0 : cmp > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "UserQuery{age=[" + minAge + ", " + maxAge + "], created=[" + createdFrom + ", " + createdTo + ")"
+                + ", name='" + namePattern + "', email='" + emailPattern + "', sort=" + sortField + (descending ? " DESC" : "")
+                + ", afterId=" + afterId + ", limit=" + limit + "}";
+    }
+
+    // LIKE без ESCAPE: % - любая последовательность, _ - один символ, остальное - буквально
+    private static Pattern likeToRegex(String like) {
+        if (like == null) return null;
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : like.toCharArray()) {
+            if (c != '%' && c != '_') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+            regex.append(c == '%' ? ".*" : ".");
+        }
+        if (literal.length() > 0) regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+// Журнал изменений InMemoryUserDao: каждая запись/удаление дописывается в конец файла,
+// при открытии журнал проигрывается заново. compact() переписывает файл текущим состоянием.
+// Запись сбрасывается в ОС после каждой операции (переживает падение процесса, но не питания - без fsync).
+final class UserSnapshotLog implements Closeable {
+    interface Replay {
+        void put(User user);
+        void delete(int id);
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(UserSnapshotLog.class);
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path file;
+    private DataOutputStream out;
+
+    private UserSnapshotLog(Path file) throws IOException {
+        this.file = file;
+        this.out = openAppend(file);
+    }
+
+    // оборванная при падении последняя запись отбрасывается, файл обрезается до последней целой
+    static UserSnapshotLog open(Path file, Replay replay) throws IOException {
+        if (Files.exists(file)) {
+            long valid = 0;
+            int records = 0;
+            CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            try (DataInputStream in = new DataInputStream(counting)) {
+                int op;
+                while ((op = in.read()) >= 0) {
+                    try {
+                        readRecord(in, op, replay);
+                    } catch (EOFException ex) {
+                        break;
+                    }
+                    valid = counting.position;
+                    records++;
+                }
+            }
+            long size = Files.size(file);
+            if (valid < size) {
+                log.warn("Журнал {}: отброшен оборванный хвост ({} байт)", file, size - valid);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+            log.info("Журнал {}: проиграно записей: {}", file, records);
+        }
+        return new UserSnapshotLog(file);
+    }
+
+    synchronized void put(User user) {
+        try {
+            out.writeByte(PUT);
+            writeUser(out, user);
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Не удалось записать в журнал " + file, ex);
+        }
+    }
+
+    synchronized void delete(int id) {
+        try {
+            out.writeByte(DELETE);
+            out.writeInt(id);
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Не удалось записать в журнал " + file, ex);
+        }
+    }
+
+    // новый файл пишется рядом и атомарно заменяет старый; вызывающий гарантирует, что изменений в это время нет
+    synchronized void rewrite(Iterable<User> users) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            out.close();
+            try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                for (User user : users) {
+                    compacted.writeByte(PUT);
+                    writeUser(compacted, user);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            out = openAppend(file);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Не удалось сжать журнал " + file, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static DataOutputStream openAppend(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+    }
+
+    private static void readRecord(DataInputStream in, int op, Replay replay) throws IOException {
+        if (op == DELETE) {
+            replay.delete(in.readInt());
+        } else if (op == PUT) {
+            replay.put(readUser(in));
+        } else {
+            throw new IOException("Повреждённый журнал: неизвестный тип записи " + op);
+        }
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        out.writeInt(user.getId());
+        out.writeInt(user.getVersion());
+        out.writeInt(user.getAge());
+        writeString(out, user.getName());
+        writeString(out, user.getEmail());
+        OffsetDateTime createdAt = user.getCreatedAt();
+        out.writeBoolean(createdAt != null);
+        if (createdAt != null) {
+            out.writeLong(createdAt.toEpochSecond());
+            out.writeInt(createdAt.getNano());
+            out.writeInt(createdAt.getOffset().getTotalSeconds());
+        }
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        int version = in.readInt();
+        int age = in.readInt();
+        String name = readString(in);
+        String email = readString(in);
+        OffsetDateTime createdAt = null;
+        if (in.readBoolean()) {
+            Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+            createdAt = OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(in.readInt()));
+        }
+        User user = new User(name, email, age, createdAt);
+        user.setId(id);
+        user.setVersion(version);
+        return user;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // позиция в файле: по ней определяется граница последней целой записи
+    private static final class CountingInputStream extends FilterInputStream {
+        private long position;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) position += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+// Пул соединений HikariCP вместо встроенного пула Hibernate (DriverManagerConnectionProviderImpl)
+public class ConnectionPool implements AutoCloseable {
+    private final HikariDataSource dataSource;
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    public ConnectionPool(HikariConfig config) {
+        config.setMetricsTrackerFactory(metrics);
+        this.dataSource = new HikariDataSource(config);
+    }
+
+    // Параметры подключения берутся из hibernate.connection.*, настройки пула - из app.pool.*
+    public static ConnectionPool fromProperties(Properties props) {
+        return fromProperties(props, "hibernate.connection.", "app.pool.");
+    }
+
+    public static ConnectionPool fromProperties(Properties props, String connectionPrefix, String poolPrefix) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(props.getProperty(poolPrefix + "name", "users-pool"));
+        config.setJdbcUrl(props.getProperty(connectionPrefix + "url"));
+        config.setUsername(props.getProperty(connectionPrefix + "username"));
+        config.setPassword(props.getProperty(connectionPrefix + "password"));
+        config.setMaximumPoolSize(intSetting(props, poolPrefix + "max_size", 10));
+        config.setMinimumIdle(intSetting(props, poolPrefix + "min_idle", 2));
+        config.setConnectionTimeout(intSetting(props, poolPrefix + "connection_timeout_ms", 30_000));
+        config.setIdleTimeout(intSetting(props, poolPrefix + "idle_timeout_ms", 600_000));
+        config.setMaxLifetime(intSetting(props, poolPrefix + "max_lifetime_ms", 1_800_000));
+        config.setLeakDetectionThreshold(intSetting(props, poolPrefix + "leak_detection_ms", 0));
+        config.setReadOnly(Boolean.parseBoolean(props.getProperty(poolPrefix + "read_only", "false")));
+        // -1 - пул создаётся и без доступной БД (реплика может подняться позже)
+        config.setInitializationFailTimeout(intSetting(props, poolPrefix + "initialization_fail_timeout_ms", 1));
+        // кэш подготовленных выражений драйвера PostgreSQL (на соединение)
+        config.addDataSourceProperty("prepareThreshold", intSetting(props, poolPrefix + "prepare_threshold", 5));
+        config.addDataSourceProperty("preparedStatementCacheQueries", intSetting(props, poolPrefix + "statement_cache_size", 256));
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB", intSetting(props, poolPrefix + "statement_cache_mib", 5));
+        return new ConnectionPool(config);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public int getMaxSize() {
+        return dataSource.getMaximumPoolSize();
+    }
+
+    public ConnectionPoolStats stats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        int active = pool == null ? 0 : pool.getActiveConnections();
+        int idle = pool == null ? 0 : pool.getIdleConnections();
+        int total = pool == null ? 0 : pool.getTotalConnections();
+        int waiting = pool == null ? 0 : pool.getThreadsAwaitingConnection();
+        return new ConnectionPoolStats(active, idle, total, waiting,
+                metrics.getAcquireCount(), metrics.getAvgAcquireMillis(), metrics.getMaxAcquireMillis(),
+                metrics.getAvgUsageMillis(), metrics.getTimeouts());
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    // целочисленная настройка app.*: пустое значение - значение по умолчанию (общая для пула и AppContext)
+    public static int intSetting(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.db;
+
+public class ConnectionPoolStats {
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int waiting;
+    private final long acquireCount;
+    private final double avgAcquireMillis;
+    private final double maxAcquireMillis;
+    private final double avgUsageMillis;
+    private final long timeouts;
+
+    ConnectionPoolStats(int active, int idle, int total, int waiting, long acquireCount,
+                        double avgAcquireMillis, double maxAcquireMillis, double avgUsageMillis, long timeouts) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiting = waiting;
+        this.acquireCount = acquireCount;
+        this.avgAcquireMillis = avgAcquireMillis;
+        this.maxAcquireMillis = maxAcquireMillis;
+        this.avgUsageMillis = avgUsageMillis;
+        this.timeouts = timeouts;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public double getAvgAcquireMillis() {
+        return avgAcquireMillis;
+    }
+
+    public double getMaxAcquireMillis() {
+        return maxAcquireMillis;
+    }
+
+    public double getAvgUsageMillis() {
+        return avgUsageMillis;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, total=%d, waiting=%d, acquired=%d, acquireAvg=%.3fms, acquireMax=%.3fms, usageAvg=%.1fms, timeouts=%d",
+                active, idle, total, waiting, acquireCount, avgAcquireMillis, maxAcquireMillis, avgUsageMillis, timeouts);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.db;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// ConnectionProvider для Hibernate поверх ConnectionPool; пул закрывает владелец, а не Hibernate
+public class PooledConnectionProvider implements ConnectionProvider {
+    private static final long serialVersionUID = 1L;
+
+    private final ConnectionPool pool;
+
+    public PooledConnectionProvider(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool.dataSource().getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        conn.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    // сырой Class - сигнатура Wrapped в Hibernate 5.4, Class<?> её не переопределяет
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || PooledConnectionProvider.class.isAssignableFrom(unwrapType)
+                || DataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType) || PooledConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        }
+        if (DataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) pool.dataSource();
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+}
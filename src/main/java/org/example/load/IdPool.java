@@ -0,0 +1,32 @@
+package org.example.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Известные генератору id: случайный выбор для findById/update, случайное изъятие для delete
+final class IdPool {
+    private int[] ids = new int[1024];
+    private int size;
+
+    synchronized void add(int id) {
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        ids[size++] = id;
+    }
+
+    // 0 - пул пуст
+    synchronized int pick() {
+        return size == 0 ? 0 : ids[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    synchronized int take() {
+        if (size == 0) return 0;
+        int index = ThreadLocalRandom.current().nextInt(size);
+        int id = ids[index];
+        ids[index] = ids[--size];
+        return id;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
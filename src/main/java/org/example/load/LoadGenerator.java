@@ -0,0 +1,177 @@
+package org.example.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.example.concurrent.VirtualThreads;
+import org.example.model.User;
+import org.example.model.UserView;
+import org.example.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Нагрузка на UserService с заданной интенсивностью (open loop): каждый из N клиентов отправляет запросы
+// по своему расписанию с шагом clients / rate, смещённым относительно соседей. Если ответ задержался,
+// следующий запрос уходит сразу, а его время отклика считается от запланированного момента - очередь
+// у клиента не прячется (coordinated omission). Клиенты - виртуальные потоки (на Java 21+).
+public class LoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final long START_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int SEED_PAGE = 1_000;
+    private static final int MAX_SEED_IDS = 100_000;
+
+    private final UserService userService;
+    private final LoadProfile profile;
+    private final IdPool ids = new IdPool();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<LoadOperation, Recorder> response = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, Recorder> service = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, AtomicBoolean> errorLogged = new EnumMap<>(LoadOperation.class);
+    private final LongAdder missed = new LongAdder();
+
+    public LoadGenerator(UserService userService, LoadProfile profile) {
+        this.userService = userService;
+        this.profile = profile;
+        for (LoadOperation operation : LoadOperation.values()) {
+            response.put(operation, new Recorder(3));
+            service.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+            errorLogged.put(operation, new AtomicBoolean());
+        }
+    }
+
+    public LoadReport run() {
+        seedIds();
+        int clients = profile.getClients();
+        long interval = Math.max(1, TimeUnit.SECONDS.toNanos(1) * clients / profile.getRate());
+        long start = System.nanoTime() + START_DELAY_NANOS;
+        long measureFrom = start + profile.getWarmup().toNanos();
+        long end = measureFrom + profile.getDuration().toNanos();
+        log.info("Нагрузка: {}, известных id: {}", profile, ids.size());
+        ExecutorService executor = VirtualThreads.newExecutor("load-client", clients);
+        try {
+            List<Future<?>> running = new ArrayList<>(clients);
+            for (int client = 0; client < clients; client++) {
+                long first = start + interval * client / clients;
+                running.add(executor.submit(() -> client(first, interval, measureFrom, end)));
+            }
+            for (Future<?> future : running) future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Нагрузочный прогон прерван", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Клиент нагрузки завершился с ошибкой", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration window = Duration.ofNanos(Math.max(end, System.nanoTime()) - measureFrom);
+        Map<LoadOperation, LoadReport.OperationResult> results = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram responses = response.get(operation).getIntervalHistogram();
+            // create попадает в отчёт и без веса в смеси, если подменял операции при пустом пуле id
+            if (!profile.getMix().containsKey(operation) && responses.getTotalCount() == 0) continue;
+            results.put(operation, new LoadReport.OperationResult(responses,
+                    service.get(operation).getIntervalHistogram(), errors.get(operation).sum()));
+        }
+        LoadReport report = new LoadReport(profile, window, results, missed.sum());
+        log.info("Нагрузка завершена: {} оп/с, не отправлено {}", String.format("%.1f", report.getThroughput()), report.getMissed());
+        return report;
+    }
+
+    private void client(long first, long interval, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long intended = first; intended < end; intended += interval) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                // не успели отправить до конца окна: остаток расписания - признак насыщения
+                long from = Math.max(intended, measureFrom);
+                missed.add((end - from + interval - 1) / interval);
+                return;
+            }
+            while (now < intended) {
+                LockSupport.parkNanos(intended - now);
+                if (Thread.currentThread().isInterrupted()) return;
+                now = System.nanoTime();
+            }
+            LoadOperation operation = resolve(profile.pick(random.nextInt()));
+            long began = System.nanoTime();
+            boolean failed = !execute(operation, random);
+            long finished = System.nanoTime();
+            // учитываем по моменту завершения: отставшие с прогрева запросы попадают в окно со своей очередью
+            if (finished >= measureFrom) {
+                response.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(finished - intended));
+                service.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(finished - began));
+                if (failed) errors.get(operation).increment();
+            }
+        }
+    }
+
+    // операциям над существующими строками нужен id; пока их нет, создаём
+    private LoadOperation resolve(LoadOperation operation) {
+        if (operation == LoadOperation.CREATE || operation == LoadOperation.FIND_ALL) return operation;
+        return ids.size() == 0 ? LoadOperation.CREATE : operation;
+    }
+
+    private boolean execute(LoadOperation operation, ThreadLocalRandom random) {
+        try {
+            switch (operation) {
+                case CREATE: {
+                    long n = sequence.incrementAndGet();
+                    User user = userService.create("Load" + n, "load-" + runId + "-" + n + "@load.test", random.nextInt(100));
+                    ids.add(user.getId());
+                    break;
+                }
+                case FIND_BY_ID:
+                    userService.findById(ids.pick());
+                    break;
+                case FIND_ALL:
+                    userService.findAll();
+                    break;
+                case UPDATE:
+                    userService.update(ids.pick(), "Load" + sequence.incrementAndGet(), null, random.nextInt(100));
+                    break;
+                case DELETE: {
+                    int id = ids.take();
+                    if (id != 0) userService.delete(id);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Неизвестная операция: " + operation);
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            if (errorLogged.get(operation).compareAndSet(false, true)) {
+                log.warn("Нагрузка: ошибка {} (дальше только счётчик): {}", operation.label(), ex.getMessage());
+            }
+            log.debug("Нагрузка: ошибка {}", operation.label(), ex);
+            return false;
+        }
+    }
+
+    // id для чтения, изменения и удаления - из первых строк таблицы
+    private void seedIds() {
+        int afterId = 0;
+        while (ids.size() < MAX_SEED_IDS) {
+            List<UserView> page = userService.findViewPage(afterId, SEED_PAGE);
+            for (UserView view : page) ids.add(view.getId());
+            if (page.size() < SEED_PAGE) break;
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+}
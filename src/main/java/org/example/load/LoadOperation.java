@@ -0,0 +1,26 @@
+package org.example.load;
+
+public enum LoadOperation {
+    CREATE("create"),
+    FIND_BY_ID("findById"),
+    FIND_ALL("findAll"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String label;
+
+    LoadOperation(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    static LoadOperation fromLabel(String label) {
+        for (LoadOperation operation : values()) {
+            if (operation.label.equalsIgnoreCase(label.trim())) return operation;
+        }
+        throw new IllegalArgumentException("Неизвестная операция в смеси: '" + label + "'");
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Параметры нагрузочного прогона: число клиентов, целевая интенсивность (операций в секунду на всех),
+// прогрев и длительность измерения, веса операций в смеси и файл CSV (может отсутствовать)
+public class LoadProfile {
+    public static final String DEFAULT_MIX = "create:10,findById:70,findAll:1,update:15,delete:4";
+
+    private final int clients;
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Map<LoadOperation, Integer> mix;
+    private final Path csv;
+    private final LoadOperation[] byWeight;
+
+    public LoadProfile(int clients, int rate, Duration warmup, Duration duration, Map<LoadOperation, Integer> mix, Path csv) {
+        if (clients < 1) throw new IllegalArgumentException("Число клиентов должно быть положительным: " + clients);
+        if (rate < 1) throw new IllegalArgumentException("Интенсивность должна быть положительной: " + rate);
+        if (warmup.isNegative()) throw new IllegalArgumentException("Прогрев не может быть отрицательным: " + warmup);
+        if (duration.isZero() || duration.isNegative()) throw new IllegalArgumentException("Длительность должна быть положительной: " + duration);
+        this.clients = clients;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.mix = new EnumMap<>(mix);
+        this.csv = csv;
+        int total = 0;
+        for (int weight : this.mix.values()) {
+            if (weight < 0) throw new IllegalArgumentException("Вес операции не может быть отрицательным: " + mix);
+            total += weight;
+        }
+        if (total == 0) throw new IllegalArgumentException("В смеси нет ни одной операции с положительным весом");
+        // операция выбирается по случайному индексу: один массив на прогон, без поиска при каждом вызове
+        this.byWeight = new LoadOperation[total];
+        int next = 0;
+        for (Map.Entry<LoadOperation, Integer> entry : this.mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) byWeight[next++] = entry.getKey();
+        }
+    }
+
+    // load [--clients=64] [--rate=500] [--warmup=10] [--duration=60] [--mix=create:10,findById:70,...] [--csv=файл]
+    public static LoadProfile parse(String[] args, int from) {
+        int clients = 64;
+        int rate = 500;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        String mix = DEFAULT_MIX;
+        Path csv = null;
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--clients=")) {
+                clients = intValue(arg);
+            } else if (arg.startsWith("--rate=")) {
+                rate = intValue(arg);
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Duration.ofSeconds(intValue(arg));
+            } else if (arg.startsWith("--duration=")) {
+                duration = Duration.ofSeconds(intValue(arg));
+            } else if (arg.startsWith("--mix=")) {
+                mix = value(arg);
+            } else if (arg.startsWith("--csv=")) {
+                csv = Path.of(value(arg));
+            } else {
+                throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+            }
+        }
+        return new LoadProfile(clients, rate, warmup, duration, parseMix(mix), csv);
+    }
+
+    static Map<LoadOperation, Integer> parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String part : mix.split(",")) {
+            int colon = part.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Ожидалось 'операция:вес', получено '" + part + "'");
+            try {
+                weights.merge(LoadOperation.fromLabel(part.substring(0, colon)), Integer.parseInt(part.substring(colon + 1).trim()), Integer::sum);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Вес должен быть целым числом: '" + part + "'");
+            }
+        }
+        return weights;
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    private static int intValue(String arg) {
+        try {
+            return Integer.parseInt(value(arg).trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Ожидалось целое число: " + arg);
+        }
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Map<LoadOperation, Integer> getMix() {
+        return mix;
+    }
+
+    public Path getCsv() {
+        return csv;
+    }
+
+    LoadOperation pick(int random) {
+        return byWeight[Math.floorMod(random, byWeight.length)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        mix.forEach((operation, weight) -> {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(operation.label()).append(':').append(weight);
+        });
+        return "clients=" + clients + ", rate=" + rate + "/s, warmup=" + warmup.getSeconds() + "s, duration="
+                + duration.getSeconds() + "s, mix=" + sb;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Итог нагрузочного прогона. Время отклика отсчитывается от запланированного момента отправки
+// (поправка на coordinated omission: задержка очереди у клиента входит в результат),
+// время обслуживания - от фактического вызова. Гистограммы - в микросекундах.
+public class LoadReport {
+    private static final String CSV_HEADER =
+            "operation,count,errors,throughput_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,service_p50_ms,service_p99_ms";
+    // меньше этой доли целевой интенсивности - генератор или система не успевают
+    private static final double SATURATION_RATIO = 0.95;
+
+    private final LoadProfile profile;
+    private final Duration window;
+    private final Map<LoadOperation, OperationResult> operations;
+    private final long missed;
+
+    LoadReport(LoadProfile profile, Duration window, Map<LoadOperation, OperationResult> operations, long missed) {
+        this.profile = profile;
+        this.window = window;
+        this.operations = Collections.unmodifiableMap(new EnumMap<>(operations));
+        this.missed = missed;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public Map<LoadOperation, OperationResult> getOperations() {
+        return operations;
+    }
+
+    // запланированные в окне измерения, но не отправленные до его конца
+    public long getMissed() {
+        return missed;
+    }
+
+    public OperationResult getTotal() {
+        Histogram response = new Histogram(3);
+        Histogram service = new Histogram(3);
+        long errors = 0;
+        for (OperationResult result : operations.values()) {
+            response.add(result.response);
+            service.add(result.service);
+            errors += result.errors;
+        }
+        return new OperationResult(response, service, errors);
+    }
+
+    public double getThroughput() {
+        return throughput(getTotal());
+    }
+
+    public boolean isSaturated() {
+        return missed > 0 || getThroughput() < profile.getRate() * SATURATION_RATIO;
+    }
+
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Нагрузка: ").append(profile).append('\n');
+        OperationResult total = getTotal();
+        sb.append(String.format(Locale.ROOT, "Окно измерения %.1f с: выполнено %d операций, %.1f оп/с при целевых %d, не отправлено %d%n",
+                seconds(), total.getCount(), throughput(total), profile.getRate(), missed));
+        sb.append(String.format("%-10s %9s %7s %9s %9s %9s %9s %9s %9s %11s %11s%n",
+                "операция", "вызовов", "ошибок", "оп/с", "p50 мс", "p90 мс", "p99 мс", "p99.9 мс", "max мс", "обсл. p50", "обсл. p99"));
+        operations.forEach((operation, result) -> appendRow(sb, operation.label(), result));
+        appendRow(sb, "всего", total);
+        if (isSaturated()) sb.append("Целевая интенсивность не достигнута: при этих параметрах система насыщена\n");
+        return sb.toString();
+    }
+
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (Map.Entry<LoadOperation, OperationResult> entry : operations.entrySet()) {
+                writer.write(csvRow(entry.getKey().label(), entry.getValue()));
+                writer.newLine();
+            }
+            writer.write(csvRow("total", getTotal()));
+            writer.newLine();
+        }
+    }
+
+    private void appendRow(StringBuilder sb, String label, OperationResult result) {
+        sb.append(String.format(Locale.ROOT, "%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f %11.2f%n",
+                label, result.getCount(), result.errors, throughput(result),
+                millis(result.response, 50), millis(result.response, 90), millis(result.response, 99),
+                millis(result.response, 99.9), result.response.getMaxValue() / 1000.0,
+                millis(result.service, 50), millis(result.service, 99)));
+    }
+
+    private String csvRow(String label, OperationResult result) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                label, result.getCount(), result.errors, throughput(result),
+                millis(result.response, 50), millis(result.response, 90), millis(result.response, 99),
+                millis(result.response, 99.9), result.response.getMaxValue() / 1000.0,
+                millis(result.service, 50), millis(result.service, 99));
+    }
+
+    private double throughput(OperationResult result) {
+        double seconds = seconds();
+        return seconds == 0 ? 0.0 : result.getCount() / seconds;
+    }
+
+    private double seconds() {
+        return window.toNanos() / 1e9;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0.0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public static class OperationResult {
+        private final Histogram response;
+        private final Histogram service;
+        private final long errors;
+
+        OperationResult(Histogram response, Histogram service, long errors) {
+            this.response = response;
+            this.service = service;
+            this.errors = errors;
+        }
+
+        public long getCount() {
+            return response.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public Histogram getResponse() {
+            return response;
+        }
+
+        public Histogram getService() {
+            return service;
+        }
+    }
+}
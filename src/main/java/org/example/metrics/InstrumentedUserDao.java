@@ -0,0 +1,142 @@
+package org.example.metrics;
+
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
+import org.example.dao.UserDao;
+import org.example.dao.UserQuery;
+import org.example.model.User;
+import org.example.model.UserView;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+// Замеряет каждую операцию DAO. Реализует UserDao напрямую, чтобы новый метод нельзя было забыть инструментировать.
+public class InstrumentedUserDao implements UserDao {
+    private final UserDao delegate;
+    private final MetricsRegistry metrics;
+
+    public InstrumentedUserDao(UserDao delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void create(User user) {
+        metrics.run("dao.create", () -> delegate.create(user));
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        return metrics.time("dao.createAll", () -> delegate.createAll(users));
+    }
+
+    @Override
+    public UpsertResult upsertByEmail(Collection<User> users) {
+        return metrics.time("dao.upsertByEmail", () -> delegate.upsertByEmail(users));
+    }
+
+    @Override
+    public User findById(int id) {
+        return metrics.time("dao.findById", () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        return metrics.time("dao.findAllByIds", () -> delegate.findAllByIds(ids));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return metrics.time("dao.findByEmail", () -> delegate.findByEmail(email));
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return metrics.time("dao.findByNamePrefix", () -> delegate.findByNamePrefix(prefix, afterId, limit));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return metrics.time("dao.findAll", delegate::findAll);
+    }
+
+    // замеряется только открытие курсора, чтение потока - на стороне вызывающего
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return metrics.time("dao.streamAll", () -> delegate.streamAll(fetchSize));
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return metrics.time("dao.findPage", () -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        return metrics.time("dao.findViewById", () -> delegate.findViewById(id));
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return metrics.time("dao.findViewPage", () -> delegate.findViewPage(afterId, limit));
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return metrics.time("dao.search", () -> delegate.search(query));
+    }
+
+    @Override
+    public long count() {
+        return metrics.time("dao.count", delegate::count);
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        return metrics.time("dao.ageHistogram", () -> delegate.ageHistogram(bucketWidth));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        return metrics.time("dao.signupsPer", () -> delegate.signupsPer(bucket));
+    }
+
+    @Override
+    public void update(User user) {
+        metrics.run("dao.update", () -> delegate.update(user));
+    }
+
+    @Override
+    public User updateFields(int id, Integer expectedVersion, String name, String email, Integer age) {
+        return metrics.time("dao.updateFields", () -> delegate.updateFields(id, expectedVersion, name, email, age));
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return metrics.time("dao.updateWhere", () -> delegate.updateWhere(criteria, name, age));
+    }
+
+    @Override
+    public void delete(User user) {
+        metrics.run("dao.delete", () -> delegate.delete(user));
+    }
+
+    @Override
+    public User deleteById(int id) {
+        return metrics.time("dao.deleteById", () -> delegate.deleteById(id));
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        return metrics.time("dao.deleteByIds", () -> delegate.deleteByIds(ids));
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return metrics.time("dao.deleteWhere", () -> delegate.deleteWhere(criteria));
+    }
+}
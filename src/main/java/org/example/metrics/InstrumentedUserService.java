@@ -0,0 +1,146 @@
+package org.example.metrics;
+
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
+import org.example.dao.UserQuery;
+import org.example.model.User;
+import org.example.model.UserView;
+import org.example.service.UserService;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class InstrumentedUserService implements UserService {
+    private final UserService delegate;
+    private final MetricsRegistry metrics;
+
+    public InstrumentedUserService(UserService delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public User create(String name, String email, int age) {
+        return metrics.time("service.create", () -> delegate.create(name, email, age));
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        return metrics.time("service.createAll", () -> delegate.createAll(users));
+    }
+
+    @Override
+    public User upsertByEmail(String name, String email, int age) {
+        return metrics.time("service.upsertByEmail", () -> delegate.upsertByEmail(name, email, age));
+    }
+
+    @Override
+    public UpsertResult upsertAllByEmail(Collection<User> users) {
+        return metrics.time("service.upsertAllByEmail", () -> delegate.upsertAllByEmail(users));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return metrics.time("service.findAll", delegate::findAll);
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return metrics.time("service.streamAll", delegate::streamAll);
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return metrics.time("service.findPage", () -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        return metrics.time("service.findViewById", () -> delegate.findViewById(id));
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return metrics.time("service.findViewPage", () -> delegate.findViewPage(afterId, limit));
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return metrics.time("service.search", () -> delegate.search(query));
+    }
+
+    @Override
+    public long count() {
+        return metrics.time("service.count", delegate::count);
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        return metrics.time("service.ageHistogram", () -> delegate.ageHistogram(bucketWidth));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        return metrics.time("service.signupsPer", () -> delegate.signupsPer(bucket));
+    }
+
+    @Override
+    public User findById(int id) {
+        return metrics.time("service.findById", () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        return metrics.time("service.findAllByIds", () -> delegate.findAllByIds(ids));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return metrics.time("service.findByEmail", () -> delegate.findByEmail(email));
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return metrics.time("service.findByNamePrefix", () -> delegate.findByNamePrefix(prefix, afterId, limit));
+    }
+
+    @Override
+    public User update(int id, String name, String email, Integer age) {
+        return metrics.time("service.update", () -> delegate.update(id, name, email, age));
+    }
+
+    @Override
+    public User update(int id, int expectedVersion, String name, String email, Integer age) {
+        return metrics.time("service.update", () -> delegate.update(id, expectedVersion, name, email, age));
+    }
+
+    @Override
+    public User modify(int id, Consumer<User> changes) {
+        return metrics.time("service.modify", () -> delegate.modify(id, changes));
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return metrics.time("service.updateWhere", () -> delegate.updateWhere(criteria, name, age));
+    }
+
+    @Override
+    public User delete(int id) {
+        return metrics.time("service.delete", () -> delegate.delete(id));
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        return metrics.time("service.deleteByIds", () -> delegate.deleteByIds(ids));
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return metrics.time("service.deleteWhere", () -> delegate.deleteWhere(criteria));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public class MetricsRegistry {
+    private static final Logger log = LoggerFactory.getLogger(MetricsRegistry.class);
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+
+    public MetricsRegistry() {
+        this(Duration.ZERO);
+    }
+
+    // slowThreshold == 0 - журнал медленных операций выключен
+    public MetricsRegistry(Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public <T> T time(String name, Supplier<T> operation) {
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = operation.get();
+            failed = false;
+            return result;
+        } finally {
+            record(name, System.nanoTime() - started, failed);
+        }
+    }
+
+    public void run(String name, Runnable operation) {
+        time(name, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public void record(String name, long elapsedNanos, boolean failed) {
+        operation(name).record(elapsedNanos, failed);
+        if (slowThresholdNanos > 0 && elapsedNanos >= slowThresholdNanos) {
+            log.warn("Медленная операция {}: {} мс{}", name, elapsedNanos / 1_000_000, failed ? " (ошибка)" : "");
+        }
+    }
+
+    public List<OperationSnapshot> snapshot() {
+        return operations.values().stream()
+                .map(OperationMetrics::snapshot)
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Long> counterValues() {
+        return counters.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum(), (a, b) -> a, TreeMap::new));
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder(String.format("%-28s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "calls", "errors", "mean,us", "p50,us", "p99,us", "p999,us", "max,us"));
+        for (OperationSnapshot s : snapshot()) {
+            sb.append(String.format("%-28s %10d %8d %10.1f %10d %10d %10d %10d%n",
+                    s.getName(), s.getCalls(), s.getErrors(), s.getMean(), s.getP50(), s.getP99(), s.getP999(), s.getMax()));
+        }
+        counterValues().forEach((name, value) -> sb.append(String.format("%-28s %10d%n", name, value)));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.metrics;
+
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Текстовый снимок: операции DAO/сервиса, статистика Hibernate и дополнительные источники (пул, кэш)
+public class MetricsReport {
+    private final MetricsRegistry registry;
+    private final Statistics statistics;
+    private final Map<String, Supplier<?>> sections = new LinkedHashMap<>();
+
+    public MetricsReport(MetricsRegistry registry, Statistics statistics) {
+        this.registry = registry;
+        this.statistics = statistics;
+    }
+
+    public MetricsReport section(String title, Supplier<?> source) {
+        sections.put(title, source);
+        return this;
+    }
+
+    public String render() {
+        StringBuilder sb = new StringBuilder("=== Операции ===\n").append(registry.format());
+        sb.append("=== Hibernate ===\n");
+        if (statistics == null || !statistics.isStatisticsEnabled()) {
+            sb.append("статистика выключена (hibernate.generate_statistics=false)\n");
+        } else {
+            appendHibernate(sb, statistics);
+        }
+        sections.forEach((title, source) -> sb.append("=== ").append(title).append(" ===\n").append(source.get()).append('\n'));
+        return sb.toString();
+    }
+
+    private static void appendHibernate(StringBuilder sb, Statistics s) {
+        sb.append(String.format("sessions: opened=%d, closed=%d; transactions=%d; connections=%d%n",
+                s.getSessionOpenCount(), s.getSessionCloseCount(), s.getTransactionCount(), s.getConnectCount()));
+        sb.append(String.format("queries: executed=%d, maxTime=%dms, slowest=%s%n",
+                s.getQueryExecutionCount(), s.getQueryExecutionMaxTime(), s.getQueryExecutionMaxTimeQueryString()));
+        sb.append(String.format("entities: loads=%d, fetches=%d, inserts=%d, updates=%d, deletes=%d%n",
+                s.getEntityLoadCount(), s.getEntityFetchCount(), s.getEntityInsertCount(), s.getEntityUpdateCount(), s.getEntityDeleteCount()));
+        sb.append(String.format("second-level cache: hits=%d, misses=%d, puts=%d; natural-id cache: hits=%d, misses=%d%n",
+                s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount(), s.getSecondLevelCachePutCount(),
+                s.getNaturalIdCacheHitCount(), s.getNaturalIdCacheMissCount()));
+        sb.append(String.format("statements: prepared=%d, closed=%d; optimistic failures=%d%n",
+                s.getPrepareStatementCount(), s.getCloseStatementCount(), s.getOptimisticFailureCount()));
+    }
+}
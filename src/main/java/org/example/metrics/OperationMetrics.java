@@ -0,0 +1,44 @@
+package org.example.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Счётчики и гистограмма задержек (HdrHistogram, микросекунды) одной операции.
+// Запись без блокировок; накопление интервалов в общую гистограмму - при снятии снимка.
+public class OperationMetrics {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private Histogram interval;
+
+    OperationMetrics(String name) {
+        this.name = name;
+        this.total.setAutoResize(true);
+    }
+
+    public void record(long elapsedNanos, boolean failed) {
+        calls.increment();
+        if (failed) errors.increment();
+        recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+    }
+
+    public synchronized OperationSnapshot snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return new OperationSnapshot(name, calls.sum(), errors.sum(),
+                total.getTotalCount() == 0 ? 0.0 : total.getMean(),
+                total.getValueAtPercentile(50),
+                total.getValueAtPercentile(99),
+                total.getValueAtPercentile(99.9),
+                total.getMaxValue());
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.metrics;
+
+// Значения задержек - в микросекундах
+public class OperationSnapshot {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final double mean;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    OperationSnapshot(String name, long calls, long errors, double mean, long p50, long p99, long p999, long max) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
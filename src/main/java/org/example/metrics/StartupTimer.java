@@ -0,0 +1,46 @@
+package org.example.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Фазы запуска (длительность, в т.ч. параллельные) и вехи (время от старта JVM)
+public class StartupTimer {
+    private static final Logger log = LoggerFactory.getLogger(StartupTimer.class);
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final List<String> phases = new ArrayList<>();
+    private final ConcurrentHashMap<String, Long> milestones = new ConcurrentHashMap<>();
+
+    public <T> T time(String phase, Supplier<T> action) {
+        long started = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            synchronized (phases) {
+                phases.add(String.format("%s: %d мс [%s]", phase, elapsedMs, Thread.currentThread().getName()));
+            }
+        }
+    }
+
+    // фиксируется только первое срабатывание вехи
+    public void mark(String milestone) {
+        long sinceJvmStart = System.currentTimeMillis() - jvmStartMillis;
+        if (milestones.putIfAbsent(milestone, sinceJvmStart) == null) {
+            log.info("Запуск: {} через {} мс от старта JVM", milestone, sinceJvmStart);
+        }
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder("JVM -> main: ").append(milestones.getOrDefault("main", -1L)).append(" мс");
+        synchronized (phases) {
+            phases.forEach(phase -> sb.append("; ").append(phase));
+        }
+        return sb.toString();
+    }
+}
@@ -1,24 +1,38 @@
 package org.example.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 
 @Entity
 @Table(name = "Users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class User {
+    public static final String ID_SEQUENCE = "users_id_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
     @Column(name="id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private int id;
 
     @Column(name="name")
     @NotEmpty(message = "Имя не должно быть пустым")
     @Size(min = 2, max = 100, message = "Длина имени должна быть от {min} до {max} символов")
     private String name;
-    @Column(name="email")
+    @NaturalId(mutable = true)
+    @Column(name="email", unique = true)
     @NotEmpty(message = "Email не должен быть пустым")
     @Size(min = 6, max = 100, message = "Длина email должна быть от {min} до {max} символов")
     @Email(message = "Некорректный email")
@@ -32,6 +46,10 @@ public class User {
     @Column(name="created_at")
     private OffsetDateTime createdAt;
 
+    @Version
+    @Column(name="version")
+    private int version;
+
     public User(){}
 
     public User(String name, String email, int age, OffsetDateTime createdAt) {
@@ -41,6 +59,17 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    // email хранится в нижнем регистре: так уникальность и поиск по natural id не зависят от регистра
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public User(User other) {
+        this(other.name, other.email, other.age, other.createdAt);
+        this.id = other.id;
+        this.version = other.version;
+    }
+
     public int getId() {
         return id;
     }
@@ -80,6 +109,14 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
@@ -0,0 +1,80 @@
+package org.example.model;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+// Неизменяемая проекция пользователя для чтения: не entity, не попадает в контекст персистентности
+public final class UserView {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    private final int id;
+    private final String name;
+    private final String email;
+    private final int age;
+    private final OffsetDateTime createdAt;
+    private final int version;
+
+    // порядок аргументов используется в HQL: SELECT new org.example.model.UserView(...)
+    public UserView(int id, String name, String email, int age, OffsetDateTime createdAt, int version) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.createdAt = createdAt;
+        this.version = version;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserView)) return false;
+        UserView other = (UserView) o;
+        return id == other.id && age == other.age && version == other.version
+                && Objects.equals(name, other.name)
+                && Objects.equals(email, other.email)
+                && Objects.equals(createdAt, other.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, email, age, createdAt, version);
+    }
+
+    // тот же формат, что и User.toString
+    @Override
+    public String toString() {
+        return "id=" + id +
+            ", name='" + name + '\'' +
+            ", email='" + email + '\'' +
+            ", age=" + age +
+            ", created_at=" + (createdAt == null ? null : createdAt
+                .atZoneSameInstant(ZoneId.systemDefault())
+                .format(FORMAT));
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.service;
+
+import org.example.model.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncUserService {
+    CompletableFuture<User> create(String name, String email, int age);
+    CompletableFuture<List<User>> findAll();
+    CompletableFuture<List<User>> findPage(int afterId, int limit);
+    CompletableFuture<User> findById(int id);
+    CompletableFuture<User> update(int id, String name, String email, Integer age);
+    CompletableFuture<User> delete(int id);
+}
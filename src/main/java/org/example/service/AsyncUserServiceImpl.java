@@ -0,0 +1,103 @@
+package org.example.service;
+
+import org.example.concurrent.VirtualThreads;
+import org.example.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Асинхронный фасад над UserService. Одновременно к БД обращаются не больше maxConcurrency задач
+// (по размеру пула соединений), остальные ждут разрешения семафора, а не соединения в пуле.
+public class AsyncUserServiceImpl implements AsyncUserService, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncUserServiceImpl.class);
+    private final UserService userService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public AsyncUserServiceImpl(UserService userService, int maxConcurrency) {
+        this(userService, VirtualThreads.newExecutor("async-user-service", maxConcurrency), maxConcurrency);
+        log.info("AsyncUserService: maxConcurrency={}, virtualThreads={}", maxConcurrency, VirtualThreads.isSupported());
+    }
+
+    AsyncUserServiceImpl(UserService userService, ExecutorService executor, int maxConcurrency) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("Лимит параллелизма должен быть положительным: " + maxConcurrency);
+        this.userService = userService;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public CompletableFuture<User> create(String name, String email, int age) {
+        return submit(() -> userService.create(name, email, age));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> findAll() {
+        return submit(userService::findAll);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> findPage(int afterId, int limit) {
+        return submit(() -> userService.findPage(afterId, limit));
+    }
+
+    @Override
+    public CompletableFuture<User> findById(int id) {
+        return submit(() -> userService.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<User> update(int id, String name, String email, Integer age) {
+        return submit(() -> userService.update(id, name, email, age));
+    }
+
+    @Override
+    public CompletableFuture<User> delete(int id) {
+        return submit(() -> userService.delete(id));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int queueLength() {
+        return permits.getQueueLength();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ex);
+            }
+            try {
+                return operation.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("AsyncUserService: не все задачи завершились за 30 секунд");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
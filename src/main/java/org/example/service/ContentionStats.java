@@ -0,0 +1,33 @@
+package org.example.service;
+
+public class ContentionStats {
+    private final long modifications;
+    private final long conflicts;
+    private final long exhausted;
+
+    public ContentionStats(long modifications, long conflicts, long exhausted) {
+        this.modifications = modifications;
+        this.conflicts = conflicts;
+        this.exhausted = exhausted;
+    }
+
+    public long getModifications() {
+        return modifications;
+    }
+
+    // конфликты версий, после которых была повторная попытка или отказ
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    // операции, не успевшие за maxAttempts попыток
+    public long getExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("modifications=%d, conflicts=%d, conflictsPerModification=%.2f, exhausted=%d",
+                modifications, conflicts, modifications == 0 ? 0.0 : (double) conflicts / modifications, exhausted);
+    }
+}
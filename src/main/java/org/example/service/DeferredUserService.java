@@ -0,0 +1,162 @@
+package org.example.service;
+
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
+import org.example.dao.UserQuery;
+import org.example.model.User;
+import org.example.model.UserView;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Сервис, который ещё собирается в фоне: первая операция ждёт готовности, последующие идут напрямую
+public class DeferredUserService implements UserService {
+    private final CompletableFuture<? extends UserService> target;
+    private final Runnable onFirstUse;
+    private final AtomicBoolean used = new AtomicBoolean();
+
+    public DeferredUserService(CompletableFuture<? extends UserService> target, Runnable onFirstUse) {
+        this.target = target;
+        this.onFirstUse = onFirstUse;
+    }
+
+    private UserService service() {
+        UserService service;
+        try {
+            service = target.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException("Не удалось инициализировать сервис пользователей", ex.getCause());
+        }
+        if (used.compareAndSet(false, true)) onFirstUse.run();
+        return service;
+    }
+
+    @Override
+    public User create(String name, String email, int age) {
+        return service().create(name, email, age);
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        return service().createAll(users);
+    }
+
+    @Override
+    public User upsertByEmail(String name, String email, int age) {
+        return service().upsertByEmail(name, email, age);
+    }
+
+    @Override
+    public UpsertResult upsertAllByEmail(Collection<User> users) {
+        return service().upsertAllByEmail(users);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return service().findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return service().streamAll();
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return service().findPage(afterId, limit);
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        return service().findViewById(id);
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return service().findViewPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return service().search(query);
+    }
+
+    @Override
+    public long count() {
+        return service().count();
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        return service().ageHistogram(bucketWidth);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        return service().signupsPer(bucket);
+    }
+
+    @Override
+    public User findById(int id) {
+        return service().findById(id);
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        return service().findAllByIds(ids);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return service().findByEmail(email);
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return service().findByNamePrefix(prefix, afterId, limit);
+    }
+
+    @Override
+    public User update(int id, String name, String email, Integer age) {
+        return service().update(id, name, email, age);
+    }
+
+    @Override
+    public User update(int id, int expectedVersion, String name, String email, Integer age) {
+        return service().update(id, expectedVersion, name, email, age);
+    }
+
+    @Override
+    public User modify(int id, Consumer<User> changes) {
+        return service().modify(id, changes);
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return service().updateWhere(criteria, name, age);
+    }
+
+    @Override
+    public User delete(int id) {
+        return service().delete(id);
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        return service().deleteByIds(ids);
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return service().deleteWhere(criteria);
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.service;
+
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
+import org.example.dao.UserQuery;
+import org.example.model.User;
+import org.example.model.UserView;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Базовый декоратор сервиса: делегирует все операции, наследники переопределяют только нужные
+public abstract class ForwardingUserService implements UserService {
+    protected final UserService delegate;
+
+    protected ForwardingUserService(UserService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public User create(String name, String email, int age) {
+        return delegate.create(name, email, age);
+    }
+
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public User upsertByEmail(String name, String email, int age) {
+        return delegate.upsertByEmail(name, email, age);
+    }
+
+    @Override
+    public UpsertResult upsertAllByEmail(Collection<User> users) {
+        return delegate.upsertAllByEmail(users);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        return delegate.findViewById(id);
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        return delegate.findViewPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        return delegate.search(query);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        return delegate.ageHistogram(bucketWidth);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        return delegate.signupsPer(bucket);
+    }
+
+    @Override
+    public User findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        return delegate.findByNamePrefix(prefix, afterId, limit);
+    }
+
+    @Override
+    public User update(int id, String name, String email, Integer age) {
+        return delegate.update(id, name, email, age);
+    }
+
+    @Override
+    public User update(int id, int expectedVersion, String name, String email, Integer age) {
+        return delegate.update(id, expectedVersion, name, email, age);
+    }
+
+    @Override
+    public User modify(int id, Consumer<User> changes) {
+        return delegate.modify(id, changes);
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String name, Integer age) {
+        return delegate.updateWhere(criteria, name, age);
+    }
+
+    @Override
+    public User delete(int id) {
+        return delegate.delete(id);
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        return delegate.deleteByIds(ids);
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        return delegate.deleteWhere(criteria);
+    }
+}
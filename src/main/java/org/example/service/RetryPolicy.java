@@ -0,0 +1,37 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Повторы при конфликте версий: экспоненциальная задержка со случайным разбросом, ограниченная сверху
+public class RetryPolicy {
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(5), Duration.ofMillis(200));
+
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public RetryPolicy(int maxAttempts, Duration baseBackoff, Duration maxBackoff) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("Число попыток должно быть положительным: " + maxAttempts);
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    // задержка перед попыткой attempt + 1: случайная в [0, min(max, base * 2^(attempt-1))]
+    long backoffNanos(int attempt) {
+        if (baseBackoffNanos <= 0) return 0;
+        long ceiling = baseBackoffNanos << Math.min(attempt - 1, 20);
+        if (ceiling <= 0 || ceiling > maxBackoffNanos) ceiling = maxBackoffNanos;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "maxAttempts=" + maxAttempts + ", baseBackoff=" + Duration.ofNanos(baseBackoffNanos) + ", maxBackoff=" + Duration.ofNanos(maxBackoffNanos);
+    }
+}
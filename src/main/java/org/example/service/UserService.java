@@ -1,12 +1,46 @@
 package org.example.service;
 
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
+import org.example.dao.UserQuery;
 import org.example.model.User;
+import org.example.model.UserView;
+
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface UserService {
     User create(String name, String email, int age);
+    BatchResult createAll(Collection<User> users);
+    // новый email - вставка, существующий - обновление name и age; один запрос без гонки между поиском и записью
+    User upsertByEmail(String name, String email, int age);
+    UpsertResult upsertAllByEmail(Collection<User> users);
     List<User> findAll();
+    Stream<User> streamAll();
+    List<User> findPage(int afterId, int limit);
+    UserView findViewById(int id);
+    List<UserView> findViewPage(int afterId, int limit);
+    List<User> search(UserQuery query);
+    long count();
+    SortedMap<Integer, Long> ageHistogram(int bucketWidth);
+    SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket);
     User findById(int id);
+    // один запрос на пакет id вместо findById в цикле
+    List<User> findAllByIds(int[] ids);
+    User findByEmail(String email);
+    List<User> findByNamePrefix(String prefix, int afterId, int limit);
     User update(int id, String name, String email, Integer age);
+    User update(int id, int expectedVersion, String name, String email, Integer age);
+    // изменения применяются к копии текущей строки; при конфликте версий - повтор с перечитыванием
+    User modify(int id, Consumer<User> changes);
+    // массовые операции одним оператором по фильтрам criteria; без фильтров не выполняются. Возвращают число строк
+    int updateWhere(UserQuery criteria, String name, Integer age);
     User delete(int id);
+    int deleteByIds(int[] ids);
+    int deleteWhere(UserQuery criteria);
 }
\ No newline at end of file
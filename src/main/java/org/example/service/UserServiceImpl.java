@@ -1,81 +1,340 @@
 package org.example.service;
 
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
 import org.example.dao.UserDao;
+import org.example.dao.UserQuery;
 import org.example.model.User;
+import org.example.model.UserView;
+import org.example.validation.RowViolation;
+import org.example.validation.UserBatchValidator;
+import org.example.validation.ValidationReport;
+import org.hibernate.StaleStateException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.OptimisticLockException;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class UserServiceImpl implements UserService{
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final int STREAM_FETCH_SIZE = 500;
     private  final UserDao userDao;
     private  final Validator validator;
+    private final UserBatchValidator batchValidator;
+    private final RetryPolicy retryPolicy;
+    private final LongAdder modifications = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
 
     public UserServiceImpl(UserDao userDao, Validator validator) {
+        this(userDao, validator, RetryPolicy.DEFAULT);
+    }
+
+    public UserServiceImpl(UserDao userDao, Validator validator, RetryPolicy retryPolicy) {
         this.userDao = userDao;
         this.validator = validator;
+        this.batchValidator = new UserBatchValidator(validator);
+        this.retryPolicy = retryPolicy;
     }
 
     @Override
     public User create(String name, String email, int age) {
         log.debug("-> create(name='{}', email='{}', age={})", name, email, age);
-        User user = new User(name, email, age, OffsetDateTime.now(ZoneOffset.UTC));
+        User user = new User(name, User.normalizeEmail(email), age, OffsetDateTime.now(ZoneOffset.UTC));
         validate(user);
         userDao.create(user);
         return user;
     }
 
+    @Override
+    public BatchResult createAll(Collection<User> users) {
+        log.debug("-> createAll(size={})", users.size());
+        prepareBatch(users);
+        BatchResult result = userDao.createAll(users);
+        if (result.hasFailures()) log.warn("createAll: не удалось вставить пакетов: {} ({})", result.getFailures().size(), result);
+        return result;
+    }
+
+    @Override
+    public User upsertByEmail(String name, String email, int age) {
+        log.debug("-> upsertByEmail(name='{}', email='{}', age={})", name, email, age);
+        User user = new User(name, User.normalizeEmail(email), age, OffsetDateTime.now(ZoneOffset.UTC));
+        validate(user);
+        return userDao.upsertByEmail(List.of(user)).getUsers().get(0);
+    }
+
+    @Override
+    public UpsertResult upsertAllByEmail(Collection<User> users) {
+        log.debug("-> upsertAllByEmail(size={})", users.size());
+        prepareBatch(users);
+        UpsertResult result = userDao.upsertByEmail(users);
+        log.debug("upsertAllByEmail: {}", result);
+        return result;
+    }
+
     @Override
     public List<User> findAll() {
         log.debug("-> findAll()");
         return userDao.findAll();
     }
 
+    @Override
+    public Stream<User> streamAll() {
+        log.debug("-> streamAll()");
+        return userDao.streamAll(STREAM_FETCH_SIZE);
+    }
+
+    @Override
+    public List<User> findPage(int afterId, int limit) {
+        log.debug("-> findPage(afterId={}, limit={})", afterId, limit);
+        if (limit < 1) throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        return userDao.findPage(afterId, limit);
+    }
+
+    @Override
+    public UserView findViewById(int id) {
+        log.debug("-> findViewById(id={})", id);
+        return userDao.findViewById(id);
+    }
+
+    @Override
+    public List<UserView> findViewPage(int afterId, int limit) {
+        log.debug("-> findViewPage(afterId={}, limit={})", afterId, limit);
+        if (limit < 1) throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        return userDao.findViewPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> search(UserQuery query) {
+        log.debug("-> search({})", query);
+        if (query == null) throw new IllegalArgumentException("Критерии поиска не заданы");
+        return userDao.search(query);
+    }
+
+    @Override
+    public long count() {
+        log.debug("-> count()");
+        return userDao.count();
+    }
+
+    @Override
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        log.debug("-> ageHistogram(bucketWidth={})", bucketWidth);
+        if (bucketWidth < 1) throw new IllegalArgumentException("Ширина корзины должна быть положительной: " + bucketWidth);
+        return userDao.ageHistogram(bucketWidth);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> signupsPer(TimeBucket bucket) {
+        log.debug("-> signupsPer(bucket={})", bucket);
+        if (bucket == null) throw new IllegalArgumentException("Интервал группировки не указан");
+        return userDao.signupsPer(bucket);
+    }
+
     @Override
     public User findById(int id) {
         log.debug("-> findById(name='{}')", id);
         return userDao.findById(id);
     }
 
+    @Override
+    public List<User> findAllByIds(int[] ids) {
+        log.debug("-> findAllByIds(size={})", ids == null ? 0 : ids.length);
+        if (ids == null) throw new IllegalArgumentException("Список ID не задан");
+        if (ids.length == 0) return List.of();
+        return userDao.findAllByIds(ids);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        log.debug("-> findByEmail(email='{}')", email);
+        if (email == null || email.isBlank()) throw new IllegalArgumentException("Email не должен быть пустым");
+        return userDao.findByEmail(User.normalizeEmail(email));
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int afterId, int limit) {
+        log.debug("-> findByNamePrefix(prefix='{}', afterId={}, limit={})", prefix, afterId, limit);
+        if (prefix == null || prefix.isEmpty()) throw new IllegalArgumentException("Префикс имени не должен быть пустым");
+        if (limit < 1) throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        return userDao.findByNamePrefix(prefix, afterId, limit);
+    }
+
     @Override
     public User update(int id, String newName, String newEmail, Integer newAge) {
         log.debug("-> update(id='{}', name='{}', email='{}', age={})", id, newName, newEmail, newAge);
-        User user = userDao.findById(id);
-        if (user == null) throw new IllegalArgumentException("Пользователь с ID=" + id + " не найден!");
-        if (newName != null) user.setName(newName);
-        if (newEmail != null) user.setEmail(newEmail);
-        if (newAge != null) user.setAge(newAge);
-        validate(user);
-        userDao.update(user);
-        return user;
+        return updateFields(id, null, newName, User.normalizeEmail(newEmail), newAge);
+    }
+
+    @Override
+    public User update(int id, int expectedVersion, String newName, String newEmail, Integer newAge) {
+        log.debug("-> update(id='{}', version={}, name='{}', email='{}', age={})", id, expectedVersion, newName, newEmail, newAge);
+        return updateFields(id, expectedVersion, newName, User.normalizeEmail(newEmail), newAge);
+    }
+
+    // read-modify-write без блокировок: изменения применяются к копии, запись - с проверкой версии.
+    // При конфликте перечитываем строку, применяем изменения заново и повторяем после паузы.
+    @Override
+    public User modify(int id, Consumer<User> changes) {
+        log.debug("-> modify(id={})", id);
+        modifications.increment();
+        for (int attempt = 1; ; attempt++) {
+            User current = userDao.findById(id);
+            if (current == null) throw new IllegalArgumentException("Пользователь с ID=" + id + " не найден!");
+            User changed = new User(current);
+            changes.accept(changed);
+            String newEmail = User.normalizeEmail(changed.getEmail());
+            try {
+                return updateFields(id, current.getVersion(),
+                        Objects.equals(changed.getName(), current.getName()) ? null : changed.getName(),
+                        Objects.equals(newEmail, current.getEmail()) ? null : newEmail,
+                        changed.getAge() == current.getAge() ? null : changed.getAge());
+            } catch (OptimisticLockException | StaleStateException ex) {
+                conflicts.increment();
+                if (attempt >= retryPolicy.getMaxAttempts()) {
+                    exhausted.increment();
+                    log.warn("modify(id={}): конфликт версий не разрешён за {} попыток", id, attempt);
+                    throw ex;
+                }
+                log.debug("modify(id={}): конфликт версий, попытка {}", id, attempt);
+                pause(retryPolicy.backoffNanos(attempt), ex);
+            }
+        }
+    }
+
+    @Override
+    public int updateWhere(UserQuery criteria, String newName, Integer newAge) {
+        log.debug("-> updateWhere(criteria={}, name='{}', age={})", criteria, newName, newAge);
+        requireFilters(criteria);
+        if (newName == null && newAge == null) throw new IllegalArgumentException("Не задано ни одно изменение");
+        validateChanges(newName, null, newAge);
+        int updated = userDao.updateWhere(criteria, newName, newAge);
+        log.info("updateWhere: изменено строк: {}", updated);
+        return updated;
+    }
+
+    public ContentionStats contentionStats() {
+        return new ContentionStats(modifications.sum(), conflicts.sum(), exhausted.sum());
     }
 
     @Override
     public User delete(int id) {
         log.debug("-> delete(name='{}')", id);
-        User user = userDao.findById(id);
-        if (user != null) userDao.delete(user);
+        return userDao.deleteById(id);
+    }
+
+    @Override
+    public int deleteByIds(int[] ids) {
+        log.debug("-> deleteByIds(size={})", ids == null ? 0 : ids.length);
+        if (ids == null) throw new IllegalArgumentException("Список ID не задан");
+        if (ids.length == 0) return 0;
+        int deleted = userDao.deleteByIds(ids);
+        log.info("deleteByIds: удалено строк: {} из {} ID", deleted, ids.length);
+        return deleted;
+    }
+
+    @Override
+    public int deleteWhere(UserQuery criteria) {
+        log.debug("-> deleteWhere(criteria={})", criteria);
+        requireFilters(criteria);
+        int deleted = userDao.deleteWhere(criteria);
+        log.info("deleteWhere: удалено строк: {}", deleted);
+        return deleted;
+    }
+
+    // без фильтров массовая операция затронула бы всю таблицу - скорее ошибка вызывающего
+    private static void requireFilters(UserQuery criteria) {
+        if (criteria == null) throw new IllegalArgumentException("Критерии не заданы");
+        if (!criteria.hasFilters()) throw new IllegalArgumentException("Не задан ни один фильтр: массовая операция над всеми пользователями не выполняется");
+    }
+
+    // Один UPDATE ... RETURNING вместо findById + update в двух сессиях
+    private User updateFields(int id, Integer expectedVersion, String newName, String newEmail, Integer newAge) {
+        User user;
+        if (newName == null && newEmail == null && newAge == null) {
+            user = userDao.findById(id);
+        } else {
+            validateChanges(newName, newEmail, newAge);
+            user = userDao.updateFields(id, expectedVersion, newName, newEmail, newAge);
+        }
+        if (user == null) throw new IllegalArgumentException("Пользователь с ID=" + id + " не найден!");
         return user;
     }
 
-    private void validate(User user) {
+    private static void pause(long nanos, RuntimeException conflict) {
+        if (nanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private void validateChanges(String newName, String newEmail, Integer newAge) {
+        Set<ConstraintViolation<User>> errors = new LinkedHashSet<>();
+        if (newName != null) errors.addAll(validator.validateValue(User.class, "name", newName));
+        if (newEmail != null) errors.addAll(validator.validateValue(User.class, "email", newEmail));
+        if (newAge != null) errors.addAll(validator.validateValue(User.class, "age", newAge));
+        if (!errors.isEmpty()) {
+            StringBuilder sb = new StringBuilder("Ошибка валидации:");
+            appendErrors(sb, errors);
+            throw new IllegalArgumentException(sb.toString());
+        }
+    }
+
+    // пакет валидируется целиком до записи (параллельно для больших пакетов): ошибки всех строк в одном исключении
+    private void prepareBatch(Collection<User> users) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (User user : users) {
+            if (user.getCreatedAt() == null) user.setCreatedAt(now);
+            user.setEmail(User.normalizeEmail(user.getEmail()));
+        }
+        ValidationReport report = batchValidator.validate(users instanceof List ? (List<User>) users : new ArrayList<>(users));
+        if (!report.isValid()) {
+            StringBuilder sb = new StringBuilder("Ошибка валидации:");
+            for (RowViolation violation : report.getViolations()) sb.append(System.lineSeparator()).append(" - ").append(violation);
+            throw new IllegalArgumentException(sb.toString());
+        }
+    }
+
+    void validate(User user) {
         log.debug("-> validate(user='{}')", user);
-        Set<ConstraintViolation<User>> errors = validator.validate(user);
+        validate(batchValidator, user);
+    }
+
+    // все нарушения строки - одним исключением; общая проверка для сервисов поверх UserBatchValidator
+    static void validate(UserBatchValidator batchValidator, User user) {
+        List<RowViolation> errors = batchValidator.validate(0, user);
         if (!errors.isEmpty()) {
             StringBuilder sb = new StringBuilder("Ошибка валидации:");
-            errors.forEach(v ->
-                sb.append(String.format("%n - %s: %s",
-                    v.getPropertyPath(),
-                    v.getMessage()
-                ))
-            );
+            for (RowViolation violation : errors) {
+                sb.append(System.lineSeparator()).append(" - ").append(violation.getProperty()).append(": ").append(violation.getMessage());
+            }
             throw new IllegalArgumentException(sb.toString());
         }
     }
+
+    private static void appendErrors(StringBuilder sb, Set<ConstraintViolation<User>> errors) {
+        for (ConstraintViolation<User> v : errors) {
+            sb.append(System.lineSeparator()).append(" - ").append(v.getPropertyPath()).append(": ").append(v.getMessage());
+        }
+    }
 }
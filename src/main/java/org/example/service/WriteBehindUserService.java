@@ -0,0 +1,214 @@
+package org.example.service;
+
+import org.example.concurrent.VirtualThreads;
+import org.example.dao.BatchResult;
+import org.example.dao.UserDao;
+import org.example.model.User;
+import org.example.validation.UserBatchValidator;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.Validator;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Групповая фиксация create: провалидированные пользователи копятся в ограниченной очереди,
+// фоновый поток передаёт их в createAll, когда набралось maxBatch или прошло maxDelay. Группа не атомарна:
+// createAll фиксирует каждый JDBC-пакет (hibernate.jdbc.batch_size) своей транзакцией.
+// Future завершается после коммита пакета с этой строкой. Полная очередь - ожидание до enqueueTimeout, затем отказ.
+public class WriteBehindUserService extends ForwardingUserService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindUserService.class);
+    private static final long IDLE_POLL_MS = 100;
+
+    private final UserDao userDao;
+    private final UserBatchValidator batchValidator;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutNanos;
+    private final Thread writer;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final ReentrantReadWriteLock enqueueLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    public WriteBehindUserService(UserService delegate, UserDao userDao, Validator validator,
+                                  int capacity, int maxBatch, Duration maxDelay, Duration enqueueTimeout) {
+        super(delegate);
+        if (capacity < 1) throw new IllegalArgumentException("Ёмкость очереди должна быть положительной: " + capacity);
+        if (maxBatch < 1) throw new IllegalArgumentException("Размер группы должен быть положительным: " + maxBatch);
+        this.userDao = userDao;
+        this.batchValidator = new UserBatchValidator(validator);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.writer = VirtualThreads.daemonThreads("write-behind").newThread(this::drainLoop);
+        this.writer.start();
+        log.info("Write-behind: capacity={}, maxBatch={}, maxDelay={}", capacity, maxBatch, maxDelay);
+    }
+
+    // синхронный вариант: вызывающий ждёт коммита своей группы
+    @Override
+    public User create(String name, String email, int age) {
+        try {
+            return createAsync(name, email, age).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    // ошибки валидации выбрасываются сразу, ошибки записи - через future
+    public CompletableFuture<User> createAsync(String name, String email, int age) {
+        User user = new User(name, User.normalizeEmail(email), age, OffsetDateTime.now(ZoneOffset.UTC));
+        UserServiceImpl.validate(batchValidator, user);
+        Pending pending = new Pending(user);
+        // проверка closed и постановка в очередь - под общей блокировкой: close() не дочистит очередь,
+        // пока в неё кто-то кладёт, и строка не останется в очереди после остановки
+        enqueueLock.readLock().lock();
+        try {
+            if (closed) throw new IllegalStateException("Сервис отложенной записи остановлен");
+            if (!queue.offer(pending, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                pending.future.completeExceptionally(new RejectedExecutionException(
+                        "Очередь отложенной записи переполнена (" + queue.size() + " в ожидании)"));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(ex);
+        } finally {
+            enqueueLock.readLock().unlock();
+        }
+        return pending.future;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // новые create отклоняются, уже принятые дописываются до выхода
+    @Override
+    public void close() {
+        enqueueLock.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+        } finally {
+            enqueueLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // поставленное после последнего опроса очереди потоком записи дописываем в текущем потоке
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) write(rest);
+        log.info("Write-behind остановлен: записано={}, ошибок={}, групп={}", written.sum(), failed.sum(), batches.sum());
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) return;
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // поток записи не должен умирать: ошибку получают future текущей группы
+                log.error("Write-behind: ошибка записи группы из {}: {}", batch.size(), ex.getMessage(), ex);
+                batch.forEach(p -> p.future.completeExceptionally(ex));
+                failed.add(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        Map<User, Pending> byUser = new IdentityHashMap<>();
+        List<User> users = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            byUser.put(p.user, p);
+            users.add(p.user);
+        }
+        BatchResult result = userDao.createAll(users);
+        batches.increment();
+        // пакет с нарушением ограничения (например, дубликат email) откатывается целиком - повторяем его
+        // построчно, чтобы ошибку получил только виновник. Прочие ошибки (соединение, таймаут) построчный
+        // повтор не исправит: пакет отклоняется целиком
+        for (BatchResult.Failure failure : result.getFailures()) {
+            if (!isConstraintViolation(failure.getCause())) {
+                log.warn("Write-behind: пакет из {} не записан: {}", failure.getUsers().size(), failure.getCause().getMessage());
+                for (User user : failure.getUsers()) {
+                    failed.increment();
+                    byUser.remove(user).future.completeExceptionally(failure.getCause());
+                }
+                continue;
+            }
+            for (User user : failure.getUsers()) {
+                Pending p = byUser.remove(user);
+                try {
+                    userDao.create(user);
+                    complete(p);
+                } catch (RuntimeException ex) {
+                    user.setId(0);
+                    failed.increment();
+                    p.future.completeExceptionally(ex);
+                }
+            }
+        }
+        byUser.values().forEach(this::complete);
+    }
+
+    private static boolean isConstraintViolation(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) return true;
+        }
+        return false;
+    }
+
+    private void complete(Pending p) {
+        written.increment();
+        p.future.complete(p.user);
+    }
+
+    private static final class Pending {
+        private final User user;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+
+        private Pending(User user) {
+            this.user = user;
+        }
+    }
+}
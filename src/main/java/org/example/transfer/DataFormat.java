@@ -0,0 +1,18 @@
+package org.example.transfer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum DataFormat {
+    CSV,
+    NDJSON;
+
+    // формат по расширению файла, .gz игнорируется
+    public static DataFormat fromFileName(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        if (name.endsWith(".csv")) return CSV;
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) return NDJSON;
+        throw new IllegalArgumentException("Неизвестный формат файла: " + path + " (ожидается .csv или .ndjson)");
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.transfer;
+
+import java.time.Duration;
+
+public class ExportResult {
+    private final long rows;
+    private final long bytes;
+    private final Duration elapsed;
+
+    public ExportResult(long rows, long bytes, Duration elapsed) {
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0.0 : rows / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows=%d, bytes=%d, elapsed=%.3fs, throughput=%.0f rows/s",
+                rows, bytes, elapsed.toNanos() / 1e9, getRowsPerSecond());
+    }
+}
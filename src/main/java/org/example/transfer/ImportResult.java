@@ -0,0 +1,44 @@
+package org.example.transfer;
+
+import java.time.Duration;
+
+public class ImportResult {
+    private final long total;
+    private final long imported;
+    private final long rejected;
+    private final Duration elapsed;
+
+    public ImportResult(long total, long imported, long rejected, Duration elapsed) {
+        this.total = total;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsed = elapsed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0.0 : total / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("total=%d, imported=%d, rejected=%d, elapsed=%.3fs, throughput=%.0f rows/s",
+                total, imported, rejected, elapsed.toNanos() / 1e9, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.transfer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Минимальные разборщики строк CSV (RFC 4180, без переводов строк внутри полей) и плоских объектов NDJSON
+final class RowParser {
+    private RowParser() {
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else {
+                field.append(c);
+                fieldStart = false;
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("незакрытая кавычка");
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static String toCsvField(String value) {
+        if (value == null) return "";
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    // значения возвращаются строками; null в JSON -> null
+    static Map<String, String> parseFlatJson(String line) {
+        Map<String, String> values = new HashMap<>();
+        Cursor cur = new Cursor(line);
+        cur.skipWhitespace();
+        cur.expect('{');
+        cur.skipWhitespace();
+        if (cur.peek() == '}') {
+            cur.next();
+        } else {
+            while (true) {
+                cur.skipWhitespace();
+                String key = cur.readString();
+                cur.skipWhitespace();
+                cur.expect(':');
+                cur.skipWhitespace();
+                values.put(key, cur.readValue());
+                cur.skipWhitespace();
+                char c = cur.next();
+                if (c == '}') break;
+                if (c != ',') throw new IllegalArgumentException("ожидалась ',' или '}' в позиции " + (cur.pos - 1));
+            }
+        }
+        cur.skipWhitespace();
+        if (!cur.atEnd()) throw new IllegalArgumentException("лишние символы после объекта");
+        return values;
+    }
+
+    private static final class Cursor {
+        private final String s;
+        private int pos;
+
+        Cursor(String s) {
+            this.s = s;
+        }
+
+        boolean atEnd() {
+            return pos >= s.length();
+        }
+
+        char peek() {
+            if (atEnd()) throw new IllegalArgumentException("неожиданный конец строки");
+            return s.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char expected) {
+            char c = next();
+            if (c != expected) throw new IllegalArgumentException("ожидался '" + expected + "' в позиции " + (pos - 1));
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        String readValue() {
+            char c = peek();
+            if (c == '"') return readString();
+            if (c == '{' || c == '[') throw new IllegalArgumentException("вложенные значения не поддерживаются");
+            int start = pos;
+            while (!atEnd() && ",}".indexOf(s.charAt(pos)) < 0 && !Character.isWhitespace(s.charAt(pos))) pos++;
+            String literal = s.substring(start, pos);
+            if (literal.isEmpty()) throw new IllegalArgumentException("пустое значение в позиции " + start);
+            if (literal.equals("null")) return null;
+            return literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char esc = next();
+                switch (esc) {
+                    case '"': case '\\': case '/': sb.append(esc); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw new IllegalArgumentException("неполная escape-последовательность");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("неизвестная escape-последовательность \\" + esc);
+                }
+            }
+        }
+    }
+}
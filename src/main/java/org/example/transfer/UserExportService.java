@@ -0,0 +1,102 @@
+package org.example.transfer;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.PersistenceException;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+// Выгрузка Users через COPY ... TO STDOUT напрямую в файл, без создания сущностей.
+// Условие where - доверенный SQL-фрагмент оператора (CLI), а не пользовательский ввод.
+public class UserExportService {
+    private static final Logger log = LoggerFactory.getLogger(UserExportService.class);
+    private static final Set<String> COLUMNS = Set.of("id", "name", "email", "age", "created_at", "version");
+    public static final List<String> DEFAULT_COLUMNS = List.of("id", "name", "email", "age", "created_at");
+
+    private final SessionFactory sessionFactory;
+
+    public UserExportService(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public ExportResult export(Path target, List<String> columns, String where) throws IOException {
+        return export(target, DataFormat.fromFileName(target), columns, where);
+    }
+
+    public ExportResult export(Path target, DataFormat format, List<String> columns, String where) throws IOException {
+        String sql = buildCopySql(format, columns, where);
+        log.info("Экспорт в {} ({}): {}", target, format, sql);
+        long started = System.nanoTime();
+        long rows;
+        try (OutputStream out = openOutput(target)) {
+            rows = copyOut(sql, out);
+        }
+        ExportResult result = new ExportResult(rows, Files.size(target), Duration.ofNanos(System.nanoTime() - started));
+        log.info("Экспорт завершён: {}", result);
+        return result;
+    }
+
+    static String buildCopySql(DataFormat format, List<String> columns, String where) {
+        if (columns == null || columns.isEmpty()) columns = DEFAULT_COLUMNS;
+        List<String> normalized = columns.stream()
+                .map(c -> c.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        for (String column : normalized) {
+            if (!COLUMNS.contains(column)) throw new IllegalArgumentException("Неизвестный столбец: " + column + ", допустимые: " + COLUMNS);
+        }
+        StringBuilder select = new StringBuilder("SELECT ").append(String.join(", ", normalized)).append(" FROM Users");
+        if (where != null && !where.isBlank()) {
+            if (where.indexOf(';') >= 0) throw new IllegalArgumentException("Условие не должно содержать ';'");
+            select.append(" WHERE ").append(where);
+        }
+        select.append(" ORDER BY id");
+        if (format == DataFormat.CSV) {
+            return "COPY (" + select + ") TO STDOUT WITH (FORMAT csv, HEADER)";
+        }
+        // JSON-строка одним столбцом; символы \x01/\x02 не встречаются в выводе row_to_json, поэтому CSV-экранирование не срабатывает
+        return "COPY (SELECT row_to_json(t) FROM (" + select + ") t) TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+    }
+
+    private long copyOut(String sql, OutputStream out) {
+        Session session = sessionFactory.openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            long rows = session.doReturningWork(connection -> {
+                try {
+                    return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            tx.commit();
+            return rows;
+        } catch (PersistenceException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            session.close();
+        }
+    }
+
+    private static OutputStream openOutput(Path target) throws IOException {
+        OutputStream out = Files.newOutputStream(target);
+        if (target.getFileName().toString().endsWith(".gz")) return new GZIPOutputStream(out, 1 << 16);
+        return new BufferedOutputStream(out, 1 << 16);
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.transfer;
+
+import org.example.model.User;
+import org.example.validation.RowViolation;
+import org.example.validation.UserBatchValidator;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.PersistenceException;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+// Импорт пользователей из CSV/NDJSON: строки читаются порциями, разбираются и валидируются параллельно,
+// валидные загружаются через COPY FROM STDIN во временную таблицу и переносятся в Users одним INSERT.
+// Строки с ошибками (включая дубликаты email) пишутся в файл отказов: номер строки, причина, исходная строка.
+public class UserImportService {
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+    private static final int DEFAULT_CHUNK_SIZE = 10_000;
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE IF NOT EXISTS users_import (id int, name varchar(100), email varchar(100), age int, created_at timestamptz) ON COMMIT DELETE ROWS";
+    private static final String COPY_STAGING = "COPY users_import (id, name, email, age, created_at) FROM STDIN WITH (FORMAT csv)";
+    private static final String MOVE_FROM_STAGING =
+            "INSERT INTO Users (id, name, email, age, created_at, version) " +
+            "SELECT id, name, email, age, created_at, 0 FROM users_import ON CONFLICT DO NOTHING RETURNING id";
+
+    private final SessionFactory sessionFactory;
+    private final UserBatchValidator validator;
+    private final int chunkSize;
+
+    public UserImportService(SessionFactory sessionFactory, Validator validator) {
+        this(sessionFactory, validator, DEFAULT_CHUNK_SIZE);
+    }
+
+    public UserImportService(SessionFactory sessionFactory, Validator validator, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Размер порции должен быть положительным: " + chunkSize);
+        this.sessionFactory = sessionFactory;
+        this.validator = new UserBatchValidator(validator);
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportResult importFile(Path source, Path rejects) throws IOException {
+        return importFile(source, DataFormat.fromFileName(source), rejects);
+    }
+
+    public ImportResult importFile(Path source, DataFormat format, Path rejects) throws IOException {
+        log.info("Импорт {} ({}), отказы -> {}", source, format, rejects);
+        long started = System.nanoTime();
+        Counters counters = new Counters();
+        try (BufferedReader reader = openReader(source);
+             BufferedWriter rejectWriter = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8)) {
+            rejectWriter.write("line\treason\trow");
+            rejectWriter.newLine();
+            Map<String, Integer> header = null;
+            List<RawLine> chunk = new ArrayList<>(chunkSize);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                if (format == DataFormat.CSV && header == null) {
+                    header = parseHeader(line);
+                    continue;
+                }
+                chunk.add(new RawLine(lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    processChunk(chunk, format, header, counters, rejectWriter);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) processChunk(chunk, format, header, counters, rejectWriter);
+        }
+        ImportResult result = new ImportResult(counters.total, counters.imported, counters.rejected,
+                Duration.ofNanos(System.nanoTime() - started));
+        log.info("Импорт завершён: {}", result);
+        return result;
+    }
+
+    private void processChunk(List<RawLine> chunk, DataFormat format, Map<String, Integer> header,
+                              Counters counters, BufferedWriter rejectWriter) throws IOException {
+        List<ParsedRow> rows = chunk.parallelStream()
+                .map(raw -> parseAndValidate(raw, format, header))
+                .collect(Collectors.toList());
+        List<ParsedRow> valid = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            if (row.error == null) {
+                valid.add(row);
+            } else {
+                reject(rejectWriter, row, row.error, counters);
+            }
+        }
+        if (!valid.isEmpty()) {
+            Set<Integer> inserted = copy(valid);
+            for (ParsedRow row : valid) {
+                if (inserted.contains(row.user.getId())) {
+                    counters.imported++;
+                } else {
+                    reject(rejectWriter, row, "email уже существует", counters);
+                }
+            }
+        }
+        counters.total += chunk.size();
+        log.debug("Импорт: обработано строк {}, загружено {}, отклонено {}", counters.total, counters.imported, counters.rejected);
+    }
+
+    private Set<Integer> copy(List<ParsedRow> rows) {
+        Session session = sessionFactory.openSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            assignIds(session, rows);
+            Set<Integer> inserted = session.doReturningWork(connection -> copyChunk(connection, rows));
+            tx.commit();
+            return inserted;
+        } catch (PersistenceException ex) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw ex;
+        } finally {
+            session.close();
+        }
+    }
+
+    private static Set<Integer> copyChunk(Connection connection, List<ParsedRow> rows) throws SQLException {
+        StringBuilder csv = new StringBuilder(rows.size() * 96);
+        for (ParsedRow row : rows) {
+            User user = row.user;
+            csv.append(user.getId()).append(',')
+                    .append(RowParser.toCsvField(user.getName())).append(',')
+                    .append(RowParser.toCsvField(user.getEmail())).append(',')
+                    .append(user.getAge()).append(',')
+                    .append(user.getCreatedAt()).append('\n');
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING);
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING, new StringReader(csv.toString()));
+            Set<Integer> inserted = new HashSet<>(rows.size() * 2);
+            try (ResultSet rs = statement.executeQuery(MOVE_FROM_STAGING)) {
+                while (rs.next()) inserted.add(rs.getInt(1));
+            }
+            return inserted;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // id выдаёт генератор сущности User из фабрики сессий, как в upsertByEmail: общий с session.save
+    // pooled-оптимизатор обращается к users_id_seq раз в allocationSize строк, диапазоны не пересекаются
+    private void assignIds(Session session, List<ParsedRow> rows) {
+        IdentifierGenerator ids = ((SessionFactoryImplementor) sessionFactory).getMetamodel()
+                .entityPersister(User.class).getIdentifierGenerator();
+        for (ParsedRow row : rows) {
+            row.user.setId((Integer) ids.generate((SharedSessionContractImplementor) session, row.user));
+        }
+    }
+
+    private ParsedRow parseAndValidate(RawLine raw, DataFormat format, Map<String, Integer> header) {
+        User user;
+        try {
+            user = toUser(fieldAccessor(raw.text, format, header));
+        } catch (IllegalArgumentException ex) {
+            return new ParsedRow(raw, null, ex.getMessage());
+        }
+        // валидная строка отсеивается быстрым путём; нарушения уже упорядочены по свойству
+        List<RowViolation> violations = validator.validate(0, user);
+        if (violations.isEmpty()) return new ParsedRow(raw, user, null);
+        String error = violations.stream()
+                .map(v -> v.getProperty() + ": " + v.getMessage())
+                .collect(Collectors.joining("; "));
+        return new ParsedRow(raw, null, error);
+    }
+
+    private static Function<String, String> fieldAccessor(String line, DataFormat format, Map<String, Integer> header) {
+        if (format == DataFormat.NDJSON) {
+            Map<String, String> values = RowParser.parseFlatJson(line);
+            return values::get;
+        }
+        List<String> values = RowParser.parseCsvLine(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("ожидалось полей: " + header.size() + ", получено: " + values.size());
+        }
+        return column -> {
+            Integer index = header.get(column);
+            return index == null ? null : values.get(index);
+        };
+    }
+
+    private static User toUser(Function<String, String> field) {
+        String ageText = field.apply("age");
+        if (ageText == null || ageText.isBlank()) throw new IllegalArgumentException("age: отсутствует значение");
+        int age;
+        try {
+            age = Integer.parseInt(ageText.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("age: не целое число '" + ageText + "'");
+        }
+        String createdAtText = field.apply("created_at");
+        OffsetDateTime createdAt;
+        try {
+            createdAt = createdAtText == null || createdAtText.isBlank()
+                    ? OffsetDateTime.now(ZoneOffset.UTC)
+                    : OffsetDateTime.parse(createdAtText.trim());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("created_at: некорректная дата '" + createdAtText + "'");
+        }
+        return new User(field.apply("name"), User.normalizeEmail(field.apply("email")), age, createdAt);
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> columns = RowParser.parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "email", "age")) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("В заголовке CSV нет столбца '" + required + "': " + line);
+            }
+        }
+        return header;
+    }
+
+    private static BufferedReader openReader(Path source) throws IOException {
+        InputStream in = Files.newInputStream(source);
+        if (source.getFileName().toString().endsWith(".gz")) in = new GZIPInputStream(in, 1 << 16);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static void reject(BufferedWriter writer, ParsedRow row, String reason, Counters counters) throws IOException {
+        writer.write(Long.toString(row.raw.lineNumber));
+        writer.write('\t');
+        writer.write(reason.replace('\t', ' ').replace('\n', ' '));
+        writer.write('\t');
+        writer.write(row.raw.text);
+        writer.newLine();
+        counters.rejected++;
+    }
+
+    private static final class RawLine {
+        final long lineNumber;
+        final String text;
+
+        RawLine(long lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+    }
+
+    private static final class ParsedRow {
+        final RawLine raw;
+        final User user;
+        final String error;
+
+        ParsedRow(RawLine raw, User user, String error) {
+            this.raw = raw;
+            this.user = user;
+            this.error = error;
+        }
+    }
+
+    private static final class Counters {
+        long total;
+        long imported;
+        long rejected;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.validation;
+
+import java.util.Comparator;
+
+// Нарушение ограничения в строке пакета: номер строки (с 0), свойство и сообщение Bean Validation
+public class RowViolation {
+    static final Comparator<RowViolation> ORDER = Comparator.comparingInt(RowViolation::getRow)
+            .thenComparing(RowViolation::getProperty)
+            .thenComparing(RowViolation::getMessage);
+
+    private final int row;
+    private final String property;
+    private final String message;
+
+    public RowViolation(int row, String property, String message) {
+        this.row = row;
+        this.property = property;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + row + "] " + property + ": " + message;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.validation;
+
+import org.example.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Проверка пакетов User. Большие пакеты делятся между ядрами (параллельный поток на общем ForkJoinPool).
+// Строка сначала проходит скомпилированные ограничения (UserConstraints): валидная отсеивается без
+// выделения памяти, остальные проверяет Validator.validate - сообщения те же, что у аннотаций.
+public class UserBatchValidator {
+    private static final Logger log = LoggerFactory.getLogger(UserBatchValidator.class);
+    // меньше этого разбиение на задачи дороже самой проверки
+    private static final int PARALLEL_THRESHOLD = 2_000;
+
+    private final Validator validator;
+    private final UserConstraints constraints;
+
+    public UserBatchValidator(Validator validator) {
+        this.validator = validator;
+        this.constraints = UserConstraints.compile(validator);
+        if (constraints == null) log.info("Быстрая проверка User отключена: ограничения проверяет только Validator");
+    }
+
+    public boolean isFastPathEnabled() {
+        return constraints != null;
+    }
+
+    public ValidationReport validate(List<User> users) {
+        IntStream rows = IntStream.range(0, users.size());
+        if (users.size() >= PARALLEL_THRESHOLD) rows = rows.parallel();
+        List<RowViolation> violations = rows
+                .filter(row -> !passesFastPath(users.get(row)))
+                .mapToObj(row -> validate(row, users.get(row)))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        return new ValidationReport(users.size(), violations);
+    }
+
+    // одна строка; пустой список - строка валидна
+    public List<RowViolation> validate(int row, User user) {
+        if (passesFastPath(user)) return List.of();
+        Set<ConstraintViolation<User>> found = validator.validate(user);
+        if (found.isEmpty()) return List.of();
+        List<RowViolation> violations = new ArrayList<>(found.size());
+        for (ConstraintViolation<User> violation : found) {
+            violations.add(new RowViolation(row, violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        violations.sort(RowViolation.ORDER);
+        return violations;
+    }
+
+    private boolean passesFastPath(User user) {
+        return constraints != null && constraints.isValid(user);
+    }
+}
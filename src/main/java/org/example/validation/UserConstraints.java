@@ -0,0 +1,202 @@
+package org.example.validation;
+
+import org.example.model.User;
+
+import javax.validation.Validator;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Ограничения User, собранные из метаданных Validator в простые проверки без рефлексии и выделения памяти.
+// Отвечает только "точно валиден" или "не знаю": во втором случае решает полный Validator.validate.
+// Если в метаданных есть то, чего быстрый путь не понимает, compile возвращает null.
+final class UserConstraints {
+    private static final int MAX_LOCAL_PART = 64;
+    private static final int MAX_DOMAIN_LABEL = 63;
+    private static final int MAX_DOMAIN = 255;
+    private static final String LOCAL_PART_SYMBOLS = "!#$%&'*+/=?^_`{|}~-";
+
+    private final StringRule[] strings;
+    private final IntRule[] ints;
+
+    private UserConstraints(StringRule[] strings, IntRule[] ints) {
+        this.strings = strings;
+        this.ints = ints;
+    }
+
+    static UserConstraints compile(Validator validator) {
+        BeanDescriptor bean;
+        try {
+            bean = validator.getConstraintsForClass(User.class);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        if (bean == null || !bean.getConstraintDescriptors().isEmpty()) return null;
+        List<StringRule> strings = new ArrayList<>();
+        List<IntRule> ints = new ArrayList<>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            if (property.isCascaded() || !property.getConstrainedContainerElementTypes().isEmpty()) return null;
+            Function<User, String> text = textProperty(property.getPropertyName());
+            ToIntFunction<User> number = intProperty(property.getPropertyName());
+            if (text != null) {
+                StringRule rule = new StringRule(text);
+                for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                    if (!rule.add(constraint)) return null;
+                }
+                strings.add(rule);
+            } else if (number != null) {
+                IntRule rule = new IntRule(number);
+                for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                    if (!rule.add(constraint)) return null;
+                }
+                ints.add(rule);
+            } else {
+                return null;
+            }
+        }
+        return new UserConstraints(strings.toArray(new StringRule[0]), ints.toArray(new IntRule[0]));
+    }
+
+    boolean isValid(User user) {
+        for (StringRule rule : strings) {
+            if (!rule.test(rule.property.apply(user))) return false;
+        }
+        for (IntRule rule : ints) {
+            int value = rule.property.applyAsInt(user);
+            if (value < rule.min || value > rule.max) return false;
+        }
+        return true;
+    }
+
+    // Подмножество адресов, которые @Email Hibernate Validator заведомо принимает: ASCII, точка-атомы
+    // в локальной части, метки домена из букв, цифр и дефиса. Остальное (кавычки, IP, IDN) - через Validator.
+    static boolean isPlainEmail(String value) {
+        int at = value.lastIndexOf('@');
+        if (at < 1 || at > MAX_LOCAL_PART || value.length() - at - 1 > MAX_DOMAIN) return false;
+        char previous = '.';
+        for (int i = 0; i < at; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (previous == '.') return false;
+            } else if (!isAsciiLetterOrDigit(c) && LOCAL_PART_SYMBOLS.indexOf(c) < 0) {
+                return false;
+            }
+            previous = c;
+        }
+        if (previous == '.') return false;
+        int labelStart = at + 1;
+        for (int i = labelStart; i <= value.length(); i++) {
+            if (i < value.length() && value.charAt(i) != '.') {
+                char c = value.charAt(i);
+                if (!isAsciiLetterOrDigit(c) && c != '-') return false;
+                continue;
+            }
+            int labelLength = i - labelStart;
+            if (labelLength == 0 || labelLength > MAX_DOMAIN_LABEL) return false;
+            if (value.charAt(labelStart) == '-' || value.charAt(i - 1) == '-') return false;
+            labelStart = i + 1;
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static Function<User, String> textProperty(String name) {
+        switch (name) {
+            case "name": return User::getName;
+            case "email": return User::getEmail;
+            default: return null;
+        }
+    }
+
+    private static ToIntFunction<User> intProperty(String name) {
+        return "age".equals(name) ? User::getAge : null;
+    }
+
+    // только ограничения группы Default без составных частей: остальное быстрый путь не воспроизводит
+    private static boolean isSimple(ConstraintDescriptor<?> constraint) {
+        Set<Class<?>> groups = constraint.getGroups();
+        return groups.size() == 1 && groups.contains(Default.class) && constraint.getComposingConstraints().isEmpty();
+    }
+
+    private static final class StringRule {
+        private final Function<User, String> property;
+        private boolean notNull;
+        private boolean notEmpty;
+        private int minLength;
+        private int maxLength = Integer.MAX_VALUE;
+        private boolean email;
+
+        private StringRule(Function<User, String> property) {
+            this.property = property;
+        }
+
+        private boolean add(ConstraintDescriptor<?> constraint) {
+            if (!isSimple(constraint)) return false;
+            Class<? extends Annotation> type = constraint.getAnnotation().annotationType();
+            Map<String, Object> attributes = constraint.getAttributes();
+            if (type == NotNull.class) {
+                notNull = true;
+            } else if (type == NotEmpty.class) {
+                notEmpty = true;
+            } else if (type == Size.class) {
+                minLength = Math.max(minLength, (Integer) attributes.get("min"));
+                maxLength = Math.min(maxLength, (Integer) attributes.get("max"));
+            } else if (type == Email.class) {
+                if (!".*".equals(attributes.get("regexp")) || ((Object[]) attributes.get("flags")).length != 0) return false;
+                email = true;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        // null и "" проходят @Size и @Email, как в Bean Validation
+        private boolean test(String value) {
+            if (value == null) return !notNull && !notEmpty;
+            int length = value.length();
+            if (length == 0) return !notEmpty && minLength == 0;
+            if (length < minLength || length > maxLength) return false;
+            return !email || isPlainEmail(value);
+        }
+    }
+
+    private static final class IntRule {
+        private final ToIntFunction<User> property;
+        private long min = Long.MIN_VALUE;
+        private long max = Long.MAX_VALUE;
+
+        private IntRule(ToIntFunction<User> property) {
+            this.property = property;
+        }
+
+        private boolean add(ConstraintDescriptor<?> constraint) {
+            if (!isSimple(constraint)) return false;
+            Class<? extends Annotation> type = constraint.getAnnotation().annotationType();
+            if (type == Min.class) {
+                min = Math.max(min, (Long) constraint.getAttributes().get("value"));
+            } else if (type == Max.class) {
+                max = Math.min(max, (Long) constraint.getAttributes().get("value"));
+            } else if (type != NotNull.class) {
+                return false;
+            }
+            return true;
+        }
+    }
+}
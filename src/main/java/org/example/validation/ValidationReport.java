@@ -0,0 +1,42 @@
+package org.example.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+// Итог проверки пакета: нарушения упорядочены по строке, затем по свойству
+public class ValidationReport {
+    private final int size;
+    private final List<RowViolation> violations;
+
+    ValidationReport(int size, List<RowViolation> violations) {
+        this.size = size;
+        this.violations = Collections.unmodifiableList(violations);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public List<RowViolation> getViolations() {
+        return violations;
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    public int getInvalidRows() {
+        int invalid = 0;
+        int previous = -1;
+        for (RowViolation violation : violations) {
+            if (violation.getRow() != previous) invalid++;
+            previous = violation.getRow();
+        }
+        return invalid;
+    }
+
+    @Override
+    public String toString() {
+        return "rows=" + size + ", invalid=" + getInvalidRows() + ", violations=" + violations.size();
+    }
+}
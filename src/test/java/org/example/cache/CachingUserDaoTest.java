@@ -0,0 +1,197 @@
+package org.example.cache;
+
+import org.example.dao.UpsertResult;
+import org.example.dao.UserDao;
+import org.example.dao.UserQuery;
+import org.example.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingUserDaoTest {
+    @Mock
+    private UserDao userDao;
+
+    private final AtomicLong clock = new AtomicLong();
+    private LruUserCache cache;
+    private CachingUserDao cachingDao;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LruUserCache(2, Duration.ofSeconds(10), clock::get);
+        cachingDao = new CachingUserDao(userDao, cache);
+    }
+
+    @Test
+    void findById_repeatedLookup_shouldHitDatabaseOnce() {
+        // Arrange
+        when(userDao.findById(1)).thenReturn(user(1));
+
+        // Act
+        User first = cachingDao.findById(1);
+        User second = cachingDao.findById(1);
+
+        // Assert
+        assertEquals(first.getEmail(), second.getEmail());
+        assertNotSame(first, second, "кэш должен отдавать копии");
+        verify(userDao, times(1)).findById(1);
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    void findById_missingUser_shouldNotBeCached() {
+        // Arrange
+        when(userDao.findById(5)).thenReturn(null);
+
+        // Act
+        cachingDao.findById(5);
+        cachingDao.findById(5);
+
+        // Assert
+        verify(userDao, times(2)).findById(5);
+    }
+
+    @Test
+    void update_shouldInvalidateEntry() {
+        // Arrange
+        User user = user(1);
+        when(userDao.findById(1)).thenReturn(user);
+        cachingDao.findById(1);
+
+        // Act
+        cachingDao.update(user);
+        cachingDao.findById(1);
+
+        // Assert
+        verify(userDao, times(2)).findById(1);
+    }
+
+    @Test
+    void delete_shouldInvalidateEntry() {
+        // Arrange
+        User user = user(1);
+        when(userDao.findById(1)).thenReturn(user);
+        cachingDao.findById(1);
+
+        // Act
+        cachingDao.delete(user);
+        cachingDao.findById(1);
+
+        // Assert
+        verify(userDao, times(2)).findById(1);
+    }
+
+    @Test
+    void upsertByEmail_shouldInvalidateReturnedRows() {
+        // Arrange
+        User user = user(1);
+        UpsertResult result = mock(UpsertResult.class);
+        when(result.getUsers()).thenReturn(List.of(user));
+        when(userDao.findById(1)).thenReturn(user);
+        when(userDao.upsertByEmail(List.of(user))).thenReturn(result);
+        cachingDao.findById(1);
+
+        // Act
+        cachingDao.upsertByEmail(List.of(user));
+        cachingDao.findById(1);
+
+        // Assert
+        verify(userDao, times(2)).findById(1);
+    }
+
+    @Test
+    void findAllByIds_shouldLoadOnlyMissesInOneQuery() {
+        // Arrange
+        when(userDao.findById(1)).thenReturn(user(1));
+        when(userDao.findAllByIds(new int[]{2, 3})).thenReturn(List.of(user(2)));
+        cachingDao.findById(1);
+
+        // Act
+        List<User> result = cachingDao.findAllByIds(new int[]{2, 1, 3, 2});
+        cachingDao.findById(2);
+
+        // Assert
+        assertEquals(List.of(2, 1), result.stream().map(User::getId).collect(Collectors.toList()));
+        verify(userDao, times(1)).findAllByIds(any());
+        verify(userDao, never()).findById(2);
+    }
+
+    @Test
+    void deleteWhere_shouldInvalidateWholeCache() {
+        // Arrange
+        UserQuery criteria = new UserQuery().age(null, 18);
+        when(userDao.findById(1)).thenReturn(user(1));
+        when(userDao.deleteWhere(criteria)).thenReturn(3);
+        cachingDao.findById(1);
+
+        // Act
+        int deleted = cachingDao.deleteWhere(criteria);
+        cachingDao.findById(1);
+
+        // Assert
+        assertEquals(3, deleted);
+        verify(userDao, times(2)).findById(1);
+    }
+
+    @Test
+    void findById_expiredEntry_shouldReload() {
+        // Arrange
+        when(userDao.findById(1)).thenReturn(user(1));
+        cachingDao.findById(1);
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        cachingDao.findById(1);
+
+        // Assert
+        verify(userDao, times(2)).findById(1);
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void put_overCapacity_shouldEvictLeastRecentlyUsed() {
+        // Act
+        cache.put(user(1), cache.stamp());
+        cache.put(user(2), cache.stamp());
+        cache.get(1);
+        cache.put(user(3), cache.stamp());
+
+        // Assert
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    void put_afterInvalidation_shouldBeIgnored() {
+        // Arrange
+        long stamp = cache.stamp();
+
+        // Act
+        cache.invalidate(1);
+        cache.put(user(1), stamp);
+
+        // Assert
+        assertNull(cache.get(1));
+    }
+
+    private static User user(int id) {
+        User user = new User("User" + id, "user" + id + "@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        user.setId(id);
+        return user;
+    }
+}
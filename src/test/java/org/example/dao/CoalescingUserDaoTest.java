@@ -0,0 +1,158 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingUserDaoTest {
+    @Mock
+    private UserDao userDao;
+
+    private CoalescingUserDao coalescing;
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        if (coalescing != null) coalescing.close();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void findById_concurrentSameId_shouldLoadOnceAndShareResult() throws Exception {
+        // Arrange
+        coalescing = new CoalescingUserDao(userDao, 100, Duration.ZERO, 1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userDao.findAllByIds(any())).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(user(7));
+        });
+        CompletableFuture<User> first = CompletableFuture.supplyAsync(() -> coalescing.findById(7), callers);
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Act
+        List<CompletableFuture<User>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) waiters.add(CompletableFuture.supplyAsync(() -> coalescing.findById(7), callers));
+        while (coalescing.stats().getShared() < 5) Thread.sleep(1);
+        release.countDown();
+
+        // Assert
+        User result = first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<User> waiter : waiters) {
+            User shared = waiter.get(5, TimeUnit.SECONDS);
+            assertEquals(7, shared.getId());
+            assertNotSame(result, shared, "каждый вызывающий получает свою копию");
+        }
+        verify(userDao, times(1)).findAllByIds(any());
+        verify(userDao, never()).findById(7);
+    }
+
+    @Test
+    void findById_differentIdsWithinWindow_shouldBeLoadedInOneQuery() throws Exception {
+        // Arrange
+        coalescing = new CoalescingUserDao(userDao, 100, Duration.ofMillis(200), 1);
+        when(userDao.findAllByIds(any())).thenAnswer(inv -> {
+            List<User> users = new ArrayList<>();
+            for (int id : inv.<int[]>getArgument(0)) if (id != 3) users.add(user(id));
+            return users;
+        });
+
+        // Act
+        List<CompletableFuture<User>> results = new ArrayList<>();
+        for (int id = 1; id <= 4; id++) {
+            int requested = id;
+            results.add(CompletableFuture.supplyAsync(() -> coalescing.findById(requested), callers));
+        }
+
+        // Assert
+        assertEquals(1, results.get(0).get(5, TimeUnit.SECONDS).getId());
+        assertNull(results.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals(4, results.get(3).get(5, TimeUnit.SECONDS).getId());
+        ArgumentCaptor<int[]> captor = ArgumentCaptor.forClass(int[].class);
+        verify(userDao).findAllByIds(captor.capture());
+        int[] ids = captor.getValue().clone();
+        Arrays.sort(ids);
+        assertArrayEquals(new int[]{1, 2, 3, 4}, ids);
+        assertEquals(1, coalescing.stats().getBatches());
+    }
+
+    @Test
+    void findById_batchWhileLoadInProgress_shouldLoadConcurrently() throws Exception {
+        // Arrange
+        coalescing = new CoalescingUserDao(userDao, 100, Duration.ZERO, 2);
+        CountDownLatch bothLoading = new CountDownLatch(2);
+        when(userDao.findAllByIds(any())).thenAnswer(inv -> {
+            bothLoading.countDown();
+            // первая загрузка ждёт вторую: с одной загрузкой за раз обе упёрлись бы в таймаут
+            assertTrue(bothLoading.await(5, TimeUnit.SECONDS));
+            return List.of(user(inv.<int[]>getArgument(0)[0]));
+        });
+
+        // Act
+        CompletableFuture<User> first = CompletableFuture.supplyAsync(() -> coalescing.findById(1), callers);
+        while (bothLoading.getCount() == 2) Thread.sleep(1);
+        CompletableFuture<User> second = CompletableFuture.supplyAsync(() -> coalescing.findById(2), callers);
+
+        // Assert
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(2, coalescing.stats().getBatches());
+    }
+
+    @Test
+    void findById_failedLoad_shouldFailAllWaitersAndAllowRetry() {
+        // Arrange
+        coalescing = new CoalescingUserDao(userDao, 100, Duration.ZERO, 1);
+        when(userDao.findAllByIds(any()))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(List.of(user(1)));
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> coalescing.findById(1));
+        assertEquals("connection refused", ex.getMessage());
+        assertEquals(1, coalescing.findById(1).getId());
+    }
+
+    @Test
+    void close_shouldSendNewRequestsDirectly() {
+        // Arrange
+        coalescing = new CoalescingUserDao(userDao, 100, Duration.ZERO, 1);
+        when(userDao.findById(5)).thenReturn(user(5));
+
+        // Act
+        coalescing.close();
+        User user = coalescing.findById(5);
+
+        // Assert
+        assertEquals(5, user.getId());
+        verify(userDao, never()).findAllByIds(any());
+    }
+
+    private static User user(int id) {
+        User user = new User("User" + id, "user" + id + "@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        user.setId(id);
+        return user;
+    }
+}
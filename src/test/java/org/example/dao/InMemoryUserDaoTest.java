@@ -0,0 +1,324 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.persistence.OptimisticLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserDaoTest {
+    private static final OffsetDateTime MONDAY = OffsetDateTime.of(2024, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+    private final InMemoryUserDao dao = new InMemoryUserDao(4);
+
+    @Test
+    void create_shouldAssignSequentialIdsAndStoreCopies() {
+        // Arrange
+        User alice = user("Alice", "alice@test.com", 30);
+
+        // Act
+        dao.create(alice);
+        dao.create(user("Bob", "bob@test.com", 40));
+        alice.setName("Changed");
+
+        // Assert
+        assertEquals(1, alice.getId());
+        assertEquals("Alice", dao.findById(1).getName());
+        assertNotSame(dao.findById(1), dao.findById(1));
+        assertEquals("Bob", dao.findByEmail(" BOB@test.com").getName());
+        assertNull(dao.findById(3));
+        assertEquals(2, dao.count());
+    }
+
+    @Test
+    void findAllByIds_shouldKeepFirstMentionOrderAndSkipMissing() {
+        // Arrange
+        dao.create(user("Alice", "alice@test.com", 30));
+        dao.create(user("Bob", "bob@test.com", 40));
+
+        // Act
+        List<User> found = dao.findAllByIds(new int[]{2, 9, 1, 2});
+
+        // Assert
+        assertEquals(List.of(2, 1), found.stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void updateWhereAndDeleteWhere_shouldAffectOnlyMatchingRows() {
+        // Arrange
+        dao.create(user("Alice", "alice@test.com", 30));
+        dao.create(user("Bob", "bob@test.com", 40));
+        dao.create(user("Carl", "carl@test.com", 50));
+
+        // Act
+        int updated = dao.updateWhere(new UserQuery().age(35, null), "Senior", null);
+        int unchanged = dao.updateWhere(new UserQuery().age(35, null), "Senior", null);
+        int deleted = dao.deleteWhere(new UserQuery().nameLike("Sen%"));
+
+        // Assert
+        assertEquals(2, updated);
+        assertEquals(0, unchanged);
+        assertEquals(2, deleted);
+        assertEquals(List.of(1), dao.findAll().stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals(1, dao.deleteByIds(new int[]{1, 1, 7}));
+        assertNull(dao.findByEmail("alice@test.com"));
+    }
+
+    @Test
+    void createAll_duplicateEmail_shouldFailOnlyOffendingRow() {
+        // Arrange
+        dao.create(user("Alice", "alice@test.com", 30));
+        User duplicate = user("Other", "alice@test.com", 20);
+
+        // Act
+        BatchResult result = dao.createAll(List.of(user("Bob", "bob@test.com", 40), duplicate, user("Carl", "carl@test.com", 50)));
+
+        // Assert
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertSame(duplicate, result.getFailures().get(0).getUsers().get(0));
+        ConstraintViolationException cause = (ConstraintViolationException) result.getFailures().get(0).getCause();
+        assertEquals("23505", cause.getSQLState());
+    }
+
+    @Test
+    void updateFields_shouldCheckVersionAndMoveEmailIndex() {
+        // Arrange
+        dao.create(user("Alice", "alice@test.com", 30));
+
+        // Act
+        User updated = dao.updateFields(1, 0, null, "alice@new.com", 31);
+
+        // Assert
+        assertEquals(1, updated.getVersion());
+        assertEquals(31, updated.getAge());
+        assertNull(dao.findByEmail("alice@test.com"));
+        assertEquals(1, dao.findByEmail("alice@new.com").getId());
+        assertThrows(OptimisticLockException.class, () -> dao.updateFields(1, 0, "Stale", null, null));
+        assertNull(dao.updateFields(99, null, "Nobody", null, null));
+    }
+
+    @Test
+    void update_staleVersion_shouldThrowAndKeepRow() {
+        // Arrange
+        dao.create(user("Alice", "alice@test.com", 30));
+        User first = dao.findById(1);
+        User second = dao.findById(1);
+        first.setAge(31);
+        dao.update(first);
+
+        // Act & Assert
+        second.setAge(99);
+        assertThrows(OptimisticLockException.class, () -> dao.update(second));
+        assertEquals(1, first.getVersion());
+        assertEquals(31, dao.findById(1).getAge());
+    }
+
+    @Test
+    void upsertByEmail_shouldInsertUpdateAndSkipUnchanged() {
+        // Arrange
+        dao.create(user("Same", "same@test.com", 30));
+        dao.create(user("Old", "changed@test.com", 40));
+
+        // Act
+        UpsertResult result = dao.upsertByEmail(List.of(
+                user("New", "new@test.com", 20),
+                user("Same", "same@test.com", 30),
+                user("Renamed", "changed@test.com", 41)));
+
+        // Assert
+        assertEquals("inserted=1, updated=1, unchanged=1", result.toString());
+        assertEquals(List.of(3, 1, 2), ids(result.getUsers()));
+        assertEquals(0, dao.findById(1).getVersion());
+        assertEquals("Renamed", dao.findByEmail("changed@test.com").getName());
+        assertEquals(1, dao.findById(2).getVersion());
+    }
+
+    @Test
+    void findPage_shouldSkipDeletedIdsInOrder() {
+        // Arrange
+        for (int i = 1; i <= 10; i++) dao.create(user("User" + i, "user" + i + "@test.com", i));
+        for (int id = 2; id <= 8; id++) dao.deleteById(id);
+
+        // Act
+        List<User> page = dao.findPage(0, 2);
+        List<User> next = dao.findPage(page.get(1).getId(), 5);
+
+        // Assert
+        assertEquals(List.of(1, 9), ids(page));
+        assertEquals(List.of(10), ids(next));
+        assertEquals(List.of(1, 9, 10), dao.streamAll(100).map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void search_shouldApplyFiltersSortAndCursor() {
+        // Arrange
+        dao.create(user("Anna", "anna@test.com", 30));
+        dao.create(user("Andrew", "andrew@test.com", 25));
+        dao.create(user("Boris", "boris@test.com", 35));
+        dao.create(user("Anton", "anton@test.com", 25));
+        UserQuery query = new UserQuery().nameLike("An%").sortBy(UserQuery.SortField.AGE, false).limit(2);
+
+        // Act
+        List<User> first = dao.search(query);
+        List<User> second = dao.search(query.after(first.get(1)));
+
+        // Assert
+        assertEquals(List.of(2, 4), ids(first));
+        assertEquals(List.of(1), ids(second));
+    }
+
+    @Test
+    void aggregates_shouldMatchSqlBuckets() {
+        // Arrange
+        dao.create(user("Alice", "alice@test.com", 21));
+        dao.create(user("Bob", "bob@test.com", 29));
+        dao.create(user("Carl", "carl@test.com", 30));
+        User late = user("Dan", "dan@test.com", 40);
+        late.setCreatedAt(MONDAY.plusDays(6));
+        dao.create(late);
+
+        // Act & Assert
+        assertEquals(Map.of(20, 2L, 30, 1L, 40, 1L), dao.ageHistogram(10));
+        assertEquals(Map.of(LocalDate.of(2024, 1, 1), 4L), dao.signupsPer(TimeBucket.WEEK));
+        assertEquals(Map.of(LocalDate.of(2024, 1, 1), 3L, LocalDate.of(2024, 1, 7), 1L), dao.signupsPer(TimeBucket.DAY));
+    }
+
+    @Test
+    void create_concurrentWriters_shouldKeepIdsAndEmailsUnique() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try {
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        User user = user("User", "user" + i + "@test.com", 20);
+                        try {
+                            dao.create(user);
+                            ids.add(user.getId());
+                        } catch (ConstraintViolationException ex) {
+                            // тот же email уже создан другим потоком
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        assertEquals(500, ids.size());
+        assertEquals(500, dao.count());
+        assertEquals(500, dao.findAll().stream().map(User::getEmail).distinct().count());
+    }
+
+    @Test
+    void open_shouldReplaySnapshotAndDropTornTail(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("users.log");
+        try (InMemoryUserDao first = InMemoryUserDao.open(file)) {
+            first.create(user("Alice", "alice@test.com", 30));
+            first.create(user("Bob", "bob@test.com", 40));
+            first.updateFields(1, 0, null, null, 31);
+            first.deleteById(2);
+        }
+        long intact = Files.size(file);
+        Files.write(file, new byte[]{1, 0, 0}, StandardOpenOption.APPEND);
+
+        // Act
+        try (InMemoryUserDao restored = InMemoryUserDao.open(file)) {
+            restored.create(user("Carl", "carl@test.com", 50));
+
+            // Assert
+            assertEquals(31, restored.findById(1).getAge());
+            assertEquals(1, restored.findById(1).getVersion());
+            assertNull(restored.findById(2));
+            assertNull(restored.findByEmail("bob@test.com"));
+            assertEquals(3, restored.findByEmail("carl@test.com").getId());
+        }
+        // хвост обрезан до дописывания: новая запись читается при следующем открытии
+        try (InMemoryUserDao reopened = InMemoryUserDao.open(file)) {
+            assertEquals(List.of(1, 3), ids(reopened.findAll()));
+        }
+        assertTrue(Files.size(file) > intact);
+    }
+
+    @Test
+    void compact_shouldRewriteLogWithCurrentRows(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("users.log");
+        try (InMemoryUserDao first = InMemoryUserDao.open(file)) {
+            for (int i = 0; i < 100; i++) first.create(user("User" + i, "user" + i + "@test.com", i));
+            for (int id = 1; id < 100; id++) first.deleteById(id);
+            long before = Files.size(file);
+
+            // Act
+            first.compact();
+            first.create(user("Late", "late@test.com", 1));
+
+            // Assert
+            assertTrue(Files.size(file) < before);
+        }
+        try (InMemoryUserDao restored = InMemoryUserDao.open(file)) {
+            assertEquals(List.of(100, 101), ids(restored.findAll()));
+        }
+    }
+
+    @Test
+    void intObjectMap_randomOperations_shouldMatchHashMap() {
+        // Arrange
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            int key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        expected.forEach((k, v) -> assertEquals(v, map.get(k)));
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    private static List<Integer> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    private static User user(String name, String email, int age) {
+        return new User(name, email, age, MONDAY);
+    }
+}
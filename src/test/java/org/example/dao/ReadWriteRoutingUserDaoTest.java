@@ -0,0 +1,247 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadWriteRoutingUserDaoTest {
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @Mock
+    private UserDao primary;
+    @Mock
+    private UserDao replica;
+
+    private final AtomicBoolean replicaUp = new AtomicBoolean(true);
+    private final AtomicInteger probes = new AtomicInteger();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdownNow();
+    }
+
+    @Test
+    void reads_withoutRecentWrites_shouldGoToReplica() {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, HOUR);
+        when(replica.findById(7)).thenReturn(user(7));
+        when(replica.findAll()).thenReturn(List.of(user(7)));
+        when(replica.count()).thenReturn(1L);
+
+        // Act
+        User found = routing.findById(7);
+        List<User> all = routing.findAll();
+        long count = routing.count();
+
+        // Assert
+        assertEquals(7, found.getId());
+        assertEquals(1, all.size());
+        assertEquals(1, count);
+        verifyNoInteractions(primary);
+        RoutingStats stats = routing.stats();
+        assertEquals(3, stats.getReplica().getCalls());
+        assertEquals(0, stats.getPrimary().getCalls());
+        assertTrue(stats.isReplicaHealthy());
+    }
+
+    @Test
+    void findById_afterWriteInAnotherThread_shouldReadWrittenIdFromPrimary() {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, HOUR);
+        when(primary.updateFields(7, null, "New", null, null)).thenReturn(user(7));
+        when(primary.findById(7)).thenReturn(user(7));
+        when(replica.findById(8)).thenReturn(user(8));
+        when(replica.findAll()).thenReturn(List.of());
+        CompletableFuture.runAsync(() -> routing.updateFields(7, null, "New", null, null), writer).join();
+
+        // Act
+        routing.findById(7);
+        routing.findById(8);
+        routing.findAll();
+
+        // Assert
+        verify(primary).findById(7);
+        verify(replica, never()).findById(7);
+        // этот поток ничего не записывал: остальное чтение - с реплики
+        verify(replica).findById(8);
+        verify(replica).findAll();
+        assertEquals(1, routing.stats().getReadYourWrites());
+    }
+
+    @Test
+    void findByEmail_afterCreate_shouldReadPrimaryUntilWindowExpires() {
+        // Arrange
+        doAnswer(inv -> {
+            inv.<User>getArgument(0).setId(5);
+            return null;
+        }).when(primary).create(any());
+        when(primary.findByEmail("New@Test.com")).thenReturn(user(5));
+        when(replica.findByEmail("other@test.com")).thenReturn(null);
+        when(replica.findAll()).thenReturn(List.of());
+        ReadWriteRoutingUserDao withWindow = routing(HOUR, HOUR);
+        ReadWriteRoutingUserDao withoutWindow = routing(Duration.ZERO, HOUR);
+
+        // Act
+        withWindow.create(new User("New", "new@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        User fresh = withWindow.findByEmail("New@Test.com");
+        withWindow.findAll();
+        withoutWindow.create(new User("Other", "other@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        User stale = withoutWindow.findByEmail("other@test.com");
+
+        // Assert
+        assertNotNull(fresh);
+        assertNull(stale);
+        // выборки после точечной записи читают реплику
+        verify(replica).findAll();
+        verify(primary, never()).findAll();
+    }
+
+    @Test
+    void findByEmail_afterEmailChange_shouldReadPreviousEmailFromPrimary() {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, HOUR);
+        User renamed = user(7);
+        renamed.setEmail("new@test.com");
+        when(primary.updateFields(7, null, null, "New@Test.com", null)).thenReturn(renamed);
+        when(primary.findByEmail("user7@test.com")).thenReturn(null);
+        when(replica.findById(8)).thenReturn(user(8));
+        CompletableFuture.runAsync(() -> routing.updateFields(7, null, null, "New@Test.com", null), writer).join();
+
+        // Act
+        User previous = routing.findByEmail("user7@test.com");
+        routing.findById(8);
+
+        // Assert
+        // реплика ещё находит строку по прежнему email
+        assertNull(previous);
+        verify(replica, never()).findByEmail(any());
+        verify(replica).findById(8);
+    }
+
+    @Test
+    void reads_afterBulkUpdate_shouldGoToPrimaryFromAnyThread() {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, HOUR);
+        UserQuery criteria = new UserQuery().age(60, null);
+        when(primary.updateWhere(criteria, "Senior", null)).thenReturn(10);
+        when(primary.search(any())).thenReturn(List.of());
+        CompletableFuture.runAsync(() -> routing.updateWhere(criteria, "Senior", null), writer).join();
+
+        // Act
+        routing.search(criteria);
+
+        // Assert
+        verify(primary).search(criteria);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void read_replicaDown_shouldFallBackToPrimaryUntilProbeSucceeds() throws Exception {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, Duration.ZERO);
+        when(replica.findById(7))
+                .thenThrow(new IllegalStateException("Connection refused"))
+                .thenReturn(user(7));
+        when(primary.findById(7)).thenReturn(user(7));
+        replicaUp.set(false);
+
+        // Act
+        User first = routing.findById(7);
+        boolean healthyAfterError = routing.stats().isReplicaHealthy();
+        // пока реплика выключена, чтение идёт на основную БД и запускает фоновую проверку
+        while (probes.get() < 2) {
+            routing.findById(7);
+            Thread.sleep(1);
+        }
+        replicaUp.set(true);
+        while (!routing.stats().isReplicaHealthy()) {
+            routing.findById(7);
+            Thread.sleep(1);
+        }
+        User recovered = routing.findById(7);
+
+        // Assert
+        assertEquals(7, first.getId());
+        assertEquals(7, recovered.getId());
+        assertFalse(healthyAfterError);
+        verify(replica, atLeast(2)).findById(7);
+        RoutingStats stats = routing.stats();
+        assertEquals(1, stats.getReplica().getErrors());
+        assertEquals(stats.getPrimary().getCalls(), stats.getFallbacks());
+    }
+
+    @Test
+    void read_replicaQueryError_shouldRetryOnPrimaryAndWaitRecheckBeforeProbe() {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, HOUR);
+        when(replica.findPage(eq(0), eq(10)))
+                .thenThrow(new IllegalStateException("canceling statement due to conflict with recovery"));
+        when(primary.findPage(0, 10)).thenReturn(List.of(user(1)));
+
+        // Act
+        List<User> first = routing.findPage(0, 10);
+        List<User> second = routing.findPage(0, 10);
+
+        // Assert
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        // до истечения recheck реплика не проверяется и не получает запросов
+        verify(replica, times(1)).findPage(0, 10);
+        verify(primary, times(2)).findPage(0, 10);
+        assertEquals(0, probes.get());
+        assertFalse(routing.stats().isReplicaHealthy());
+        assertEquals(2, routing.stats().getFallbacks());
+    }
+
+    @Test
+    void writes_shouldGoToPrimaryOnly() {
+        // Arrange
+        ReadWriteRoutingUserDao routing = routing(HOUR, HOUR);
+        when(primary.deleteById(3)).thenReturn(user(3));
+        when(primary.deleteByIds(any())).thenReturn(2);
+
+        // Act
+        routing.update(user(1));
+        routing.deleteById(3);
+        int deleted = routing.deleteByIds(new int[]{4, 5});
+
+        // Assert
+        assertEquals(2, deleted);
+        verify(primary).update(any());
+        verifyNoInteractions(replica);
+        assertEquals(3, routing.stats().getPrimary().getCalls());
+    }
+
+    private ReadWriteRoutingUserDao routing(Duration readYourWrites, Duration recheck) {
+        return new ReadWriteRoutingUserDao(primary, replica, () -> {
+            probes.incrementAndGet();
+            return replicaUp.get();
+        }, readYourWrites, recheck);
+    }
+
+    private static User user(int id) {
+        User user = new User("User" + id, "user" + id + "@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        user.setId(id);
+        return user;
+    }
+}
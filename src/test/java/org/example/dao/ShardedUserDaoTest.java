@@ -0,0 +1,314 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedUserDaoTest {
+    private static final int SHARD_1_BASE = 1 << ShardedUserDao.SHARD_SHIFT;
+
+    @Mock
+    private UserDao shard0;
+    @Mock
+    private UserDao shard1;
+
+    private ShardedUserDao sharded;
+
+    @BeforeEach
+    void setUp() {
+        sharded = new ShardedUserDao(List.of(shard0, shard1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharded.close();
+    }
+
+    @Test
+    void create_shouldRouteByEmailAndCheckIdRange() {
+        // Arrange
+        String email = emailOnShard(1);
+        User user = user(0, "Alice", email, 30);
+        doAnswer(inv -> {
+            inv.<User>getArgument(0).setId(SHARD_1_BASE + 1);
+            return null;
+        }).when(shard1).create(user);
+
+        // Act
+        sharded.create(user);
+
+        // Assert
+        assertEquals(1, ShardedUserDao.shardOf(user.getId()));
+        verifyNoInteractions(shard0);
+    }
+
+    @Test
+    void create_idOutsideShardRange_shouldDeleteRowAndThrowException() {
+        // Arrange
+        User user = user(0, "Alice", emailOnShard(1), 30);
+        doAnswer(inv -> {
+            inv.<User>getArgument(0).setId(7);
+            return null;
+        }).when(shard1).create(user);
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> sharded.create(user));
+        assertTrue(ex.getMessage().contains("ALTER SEQUENCE"));
+        verify(shard1).deleteById(7);
+        assertEquals(0, user.getId());
+    }
+
+    @Test
+    void upsertByEmail_shouldGroupByShardAndKeepInputOrder() {
+        // Arrange
+        User first = user(0, "A", emailOnShard(1), 20);
+        User second = user(0, "B", emailOnShard(0), 30);
+        when(shard1.upsertByEmail(List.of(first))).thenReturn(new UpsertResult(List.of(stored(SHARD_1_BASE + 1, first)), 1, 0));
+        when(shard0.upsertByEmail(List.of(second))).thenReturn(new UpsertResult(List.of(stored(7, second)), 0, 1));
+
+        // Act
+        UpsertResult result = sharded.upsertByEmail(List.of(first, second));
+
+        // Assert
+        assertEquals(List.of(SHARD_1_BASE + 1, 7), ids(result.getUsers()));
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+    }
+
+    @Test
+    void createAll_shouldTagFailuresWithShardAndRejectIdsOutsideRange() {
+        // Arrange
+        List<String> shard1Emails = emailsOnShard(1, 2);
+        User ok = user(0, "A", emailOnShard(0), 20);
+        User duplicate = user(0, "B", shard1Emails.get(0), 30);
+        User misplaced = user(0, "C", shard1Emails.get(1), 40);
+        when(shard0.createAll(List.of(ok))).thenAnswer(inv -> {
+            ok.setId(5);
+            BatchResult result = new BatchResult();
+            result.addInserted(1);
+            return result;
+        });
+        IllegalStateException duplicateKey = new IllegalStateException("duplicate key");
+        when(shard1.createAll(List.of(duplicate, misplaced))).thenAnswer(inv -> {
+            misplaced.setId(7);
+            BatchResult result = new BatchResult();
+            result.addFailure(0, List.of(duplicate), duplicateKey);
+            result.addInserted(1);
+            return result;
+        });
+
+        // Act
+        BatchResult result = sharded.createAll(List.of(ok, duplicate, misplaced));
+
+        // Assert
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getFailures().size());
+        BatchResult.Failure failed = result.getFailures().get(0);
+        assertEquals(1, failed.getShard());
+        assertEquals(0, failed.getBatchIndex());
+        assertSame(duplicateKey, failed.getCause());
+        BatchResult.Failure outOfRange = result.getFailures().get(1);
+        assertEquals(1, outOfRange.getShard());
+        assertEquals(BatchResult.Failure.AFTER_INSERT, outOfRange.getBatchIndex());
+        assertEquals(List.of(misplaced), outOfRange.getUsers());
+        verify(shard1).deleteByIds(new int[]{7});
+        assertEquals(0, misplaced.getId());
+    }
+
+    @Test
+    void findById_shouldRouteByIdHighBits() {
+        // Arrange
+        User user = user(SHARD_1_BASE + 5, "Bob", "bob@test.com", 40);
+        when(shard1.findById(SHARD_1_BASE + 5)).thenReturn(user);
+
+        // Act
+        User found = sharded.findById(SHARD_1_BASE + 5);
+        User unknownShard = sharded.findById(3 << ShardedUserDao.SHARD_SHIFT);
+
+        // Assert
+        assertSame(user, found);
+        assertNull(unknownShard);
+        verifyNoInteractions(shard0);
+    }
+
+    @Test
+    void findAllByIds_shouldSplitByShardAndKeepRequestOrder() {
+        // Arrange
+        when(shard0.findAllByIds(new int[]{4})).thenReturn(List.of(user(4, "A", "a@test.com", 1)));
+        when(shard1.findAllByIds(new int[]{SHARD_1_BASE + 2, SHARD_1_BASE + 9}))
+                .thenReturn(List.of(user(SHARD_1_BASE + 2, "B", "b@test.com", 1)));
+
+        // Act
+        List<User> found = sharded.findAllByIds(new int[]{SHARD_1_BASE + 2, 4, SHARD_1_BASE + 9, 3 << ShardedUserDao.SHARD_SHIFT});
+
+        // Assert
+        assertEquals(List.of(SHARD_1_BASE + 2, 4), ids(found));
+    }
+
+    @Test
+    void deleteByIds_shouldSendEachShardOnlyItsIdsAndSumCounts() {
+        // Arrange
+        when(shard0.deleteByIds(new int[]{4, 5})).thenReturn(1);
+        when(shard1.deleteByIds(new int[]{SHARD_1_BASE + 2})).thenReturn(1);
+
+        // Act
+        int deleted = sharded.deleteByIds(new int[]{4, SHARD_1_BASE + 2, 5});
+
+        // Assert
+        assertEquals(2, deleted);
+    }
+
+    @Test
+    void findPage_shouldContinueIntoNextShard() {
+        // Arrange
+        when(shard0.findPage(10, 3)).thenReturn(List.of(user(11, "A", "a@test.com", 1), user(12, "B", "b@test.com", 1)));
+        when(shard1.findPage(12, 1)).thenReturn(List.of(user(SHARD_1_BASE + 1, "C", "c@test.com", 1)));
+
+        // Act
+        List<User> page = sharded.findPage(10, 3);
+
+        // Assert
+        assertEquals(List.of(11, 12, SHARD_1_BASE + 1), ids(page));
+    }
+
+    @Test
+    void search_shouldMergeShardPagesInQueryOrder() {
+        // Arrange
+        UserQuery query = new UserQuery().sortBy(UserQuery.SortField.AGE, false).limit(3);
+        when(shard0.search(query)).thenReturn(List.of(user(1, "A", "a@test.com", 20), user(2, "B", "b@test.com", 40)));
+        when(shard1.search(query)).thenReturn(List.of(user(SHARD_1_BASE + 1, "C", "c@test.com", 30), user(SHARD_1_BASE + 2, "D", "d@test.com", 50)));
+
+        // Act
+        List<User> result = sharded.search(query);
+
+        // Assert
+        assertEquals(List.of(1, SHARD_1_BASE + 1, 2), ids(result));
+    }
+
+    @Test
+    void streamAll_shouldOpenShardCursorsConcurrentlyAndKeepIdOrder() throws Exception {
+        // Arrange
+        CountDownLatch shard1Opened = new CountDownLatch(1);
+        AtomicBoolean shard1Closed = new AtomicBoolean();
+        when(shard1.streamAll(10)).thenAnswer(inv -> {
+            shard1Opened.countDown();
+            return Stream.of(user(SHARD_1_BASE + 1, "C", "c@test.com", 1)).onClose(() -> shard1Closed.set(true));
+        });
+        // первый шард отдаёт строки только после открытия курсора второго
+        when(shard0.streamAll(10)).thenAnswer(inv -> {
+            assertTrue(shard1Opened.await(5, TimeUnit.SECONDS), "курсор шарда 1 не открыт параллельно");
+            return Stream.of(user(1, "A", "a@test.com", 1), user(2, "B", "b@test.com", 1));
+        });
+
+        // Act
+        List<User> all;
+        try (Stream<User> stream = sharded.streamAll(10)) {
+            all = stream.collect(Collectors.toList());
+        }
+
+        // Assert
+        assertEquals(List.of(1, 2, SHARD_1_BASE + 1), ids(all));
+        assertTrue(shard1Closed.get());
+    }
+
+    @Test
+    void streamAll_closedEarly_shouldStopReadingAndCloseShardCursors() throws Exception {
+        // Arrange
+        CountDownLatch closed = new CountDownLatch(2);
+        when(shard0.streamAll(1)).thenReturn(IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> user(id, "A", "a@test.com", 1)).onClose(closed::countDown));
+        when(shard1.streamAll(1)).thenReturn(IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> user(SHARD_1_BASE + id, "B", "b@test.com", 1)).onClose(closed::countDown));
+
+        // Act
+        List<User> first;
+        try (Stream<User> stream = sharded.streamAll(1)) {
+            first = stream.limit(2).collect(Collectors.toList());
+        }
+
+        // Assert
+        assertEquals(List.of(1, 2), ids(first));
+        assertTrue(closed.await(5, TimeUnit.SECONDS), "курсоры шардов не закрыты после close()");
+    }
+
+    @Test
+    void aggregates_shouldSumAcrossShards() {
+        // Arrange
+        when(shard0.count()).thenReturn(2L);
+        when(shard1.count()).thenReturn(3L);
+        when(shard0.ageHistogram(10)).thenReturn(new TreeMap<>(Map.of(20, 2L)));
+        when(shard1.ageHistogram(10)).thenReturn(new TreeMap<>(Map.of(20, 1L, 30, 2L)));
+
+        // Act & Assert
+        assertEquals(5, sharded.count());
+        assertEquals(Map.of(20, 3L, 30, 2L), sharded.ageHistogram(10));
+    }
+
+    @Test
+    void updateFields_emailOnOtherShard_shouldBeRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> sharded.updateFields(SHARD_1_BASE + 1, null, null, emailOnShard(0), null));
+        verify(shard1, never()).updateFields(anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void sequenceDdl_shouldReserveFirstPoolInsideShardRange() {
+        assertEquals("ALTER SEQUENCE users_id_seq INCREMENT BY 50 MINVALUE 134217729 MAXVALUE 268435455 START WITH 134217778 RESTART WITH 134217778",
+                ShardedUserDao.sequenceDdl(1));
+    }
+
+    private String emailOnShard(int shard) {
+        return IntStream.range(0, 100)
+                .mapToObj(i -> "user" + i + "@test.com")
+                .filter(email -> sharded.shardForEmail(email) == shard)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<String> emailsOnShard(int shard, int count) {
+        return IntStream.range(0, 100)
+                .mapToObj(i -> "user" + i + "@test.com")
+                .filter(email -> sharded.shardForEmail(email) == shard)
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    private static User stored(int id, User user) {
+        User copy = new User(user);
+        copy.setId(id);
+        return copy;
+    }
+
+    private static User user(int id, String name, String email, int age) {
+        User user = new User(name, email, age, OffsetDateTime.now(ZoneOffset.UTC));
+        user.setId(id);
+        return user;
+    }
+}
@@ -1,9 +1,11 @@
 package org.example.dao;
 
 import org.example.model.User;
+import org.example.model.UserView;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,9 +14,15 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import javax.persistence.OptimisticLockException;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,6 +74,67 @@ class UserDaoImplTest {
         assertEquals("A1@test.com", found.getEmail());
     }
 
+    @Test
+    void createAll_shouldInsertInBatchesAndAssignIds() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            users.add(new User("U" + i, "u" + i + "@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC)));
+        }
+
+        BatchResult result = new UserDaoImpl(sessionFactory, 50).createAll(users);
+
+        assertEquals(120, result.getInserted());
+        assertFalse(result.hasFailures());
+        assertEquals(120, userDao.findAll().size());
+        users.forEach(u -> assertNotEquals(0, u.getId()));
+    }
+
+    @Test
+    void createAll_failedBatch_shouldKeepOtherBatches() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            users.add(new User("U" + i, "u" + i + "@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC)));
+        }
+        // дубликат email во втором пакете
+        users.add(new User("Dup", "u0@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC)));
+
+        BatchResult result = new UserDaoImpl(sessionFactory, 2).createAll(users);
+
+        assertEquals(4, result.getInserted());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(2, result.getFailures().get(0).getBatchIndex());
+        // по причине пакета вызывающие отличают нарушение ограничения от сбоя инфраструктуры
+        assertInstanceOf(ConstraintViolationException.class, result.getFailures().get(0).getCause().getCause());
+        assertEquals(4, userDao.findAll().size());
+    }
+
+    @Test
+    void upsertByEmail_shouldInsertNewUpdateChangedAndKeepUnchanged() {
+        User same = new User("Same", "same@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        User changed = new User("Old", "changed@test.com", 40, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(same);
+        userDao.create(changed);
+
+        UpsertResult result = new UserDaoImpl(sessionFactory, 2).upsertByEmail(List.of(
+                new User("New", "new@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC)),
+                new User("Same", "same@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)),
+                new User("Ignored", "changed@test.com", 41, OffsetDateTime.now(ZoneOffset.UTC)),
+                new User("Renamed", "changed@test.com", 42, OffsetDateTime.now(ZoneOffset.UTC))));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        List<User> users = result.getUsers();
+        assertEquals(List.of("new@test.com", "same@test.com", "changed@test.com"),
+                users.stream().map(User::getEmail).collect(Collectors.toList()));
+        assertNotEquals(0, users.get(0).getId());
+        assertEquals(same.getVersion(), users.get(1).getVersion());
+        assertEquals(changed.getId(), users.get(2).getId());
+        assertEquals("Renamed", userDao.findById(changed.getId()).getName());
+        assertEquals(changed.getVersion() + 1, userDao.findById(changed.getId()).getVersion());
+        assertEquals(3, userDao.count());
+    }
+
     @Test
     void findAll_shouldReturnAllPersistedUsers() {
         User user1 = new User("A1", "a1@test.com", 31, OffsetDateTime.now(ZoneOffset.UTC));
@@ -77,6 +146,166 @@ class UserDaoImplTest {
         assertEquals(2, all.size());
     }
 
+    @Test
+    void streamAll_shouldReturnAllUsersOrderedById() {
+        for (int i = 0; i < 5; i++) {
+            userDao.create(new User("S" + i, "s" + i + "@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        }
+
+        List<User> streamed;
+        try (Stream<User> stream = userDao.streamAll(2)) {
+            streamed = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(5, streamed.size());
+        for (int i = 1; i < streamed.size(); i++) {
+            assertTrue(streamed.get(i - 1).getId() < streamed.get(i).getId());
+        }
+    }
+
+    @Test
+    void findPage_shouldReturnUsersAfterGivenId() {
+        for (int i = 0; i < 5; i++) {
+            userDao.create(new User("P" + i, "p" + i + "@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        }
+
+        List<User> first = userDao.findPage(0, 3);
+        List<User> second = userDao.findPage(first.get(2).getId(), 3);
+
+        assertEquals(3, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.get(0).getId() > first.get(2).getId());
+    }
+
+    @Test
+    void findAllByIds_shouldReturnFoundRowsInRequestOrder() {
+        User first = new User("M1", "m1@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        User second = new User("M2", "m2@test.com", 31, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(first);
+        userDao.create(second);
+
+        List<User> found = userDao.findAllByIds(new int[]{second.getId(), Integer.MAX_VALUE, first.getId(), second.getId()});
+
+        assertEquals(2, found.size());
+        assertEquals(second.getId(), found.get(0).getId());
+        assertEquals("M1", found.get(1).getName());
+    }
+
+    @Test
+    void findByEmail_shouldReturnUserByNaturalId() {
+        User user = new User("Mail", "mail@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(user);
+
+        User found = userDao.findByEmail("Mail@Test.com");
+
+        assertNotNull(found);
+        assertEquals(user.getId(), found.getId());
+        assertNull(userDao.findByEmail("missing@test.com"));
+    }
+
+    @Test
+    void findByEmail_withSecondLevelCache_shouldAnswerRepeatedLookupWithoutSql() {
+        Configuration cfg = new Configuration();
+        cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        cfg.setProperty("hibernate.connection.url", postgres.getJdbcUrl());
+        cfg.setProperty("hibernate.connection.username", postgres.getUsername());
+        cfg.setProperty("hibernate.connection.password", postgres.getPassword());
+        cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+        cfg.setProperty("hibernate.generate_statistics", "true");
+        cfg.addAnnotatedClass(User.class);
+        try (SessionFactory cached = cfg.buildSessionFactory()) {
+            UserDao cachedDao = new UserDaoImpl(cached);
+            User user = new User("Cached", "cached@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+            cachedDao.create(user);
+            cachedDao.findByEmail("cached@test.com");
+            cached.getStatistics().clear();
+
+            User found = cachedDao.findByEmail("Cached@Test.com");
+
+            assertEquals(user.getId(), found.getId());
+            assertEquals(0, cached.getStatistics().getPrepareStatementCount());
+            assertEquals(1, cached.getStatistics().getNaturalIdCacheHitCount());
+        }
+    }
+
+    @Test
+    void findByNamePrefix_shouldMatchPrefixLiterallyAndPage() {
+        userDao.create(new User("Ann_1", "ann1@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        userDao.create(new User("Ann_2", "ann2@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        userDao.create(new User("AnnX", "annx@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        userDao.create(new User("Bob", "bob@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+
+        List<User> first = userDao.findByNamePrefix("Ann_", 0, 1);
+        List<User> second = userDao.findByNamePrefix("Ann_", first.get(0).getId(), 10);
+
+        assertEquals("Ann_1", first.get(0).getName());
+        assertEquals(1, second.size());
+        assertEquals("Ann_2", second.get(0).getName());
+    }
+
+    @Test
+    void search_shouldCombineFiltersAndPageBySortField() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        userDao.create(new User("Ann", "ann@test.com", 25, now));
+        userDao.create(new User("Bob", "bob@test.com", 40, now));
+        userDao.create(new User("Carl", "carl@test.com", 40, now));
+        userDao.create(new User("Dan", "dan@other.com", 35, now));
+        userDao.create(new User("Eve", "eve@test.com", 60, now));
+
+        UserQuery query = new UserQuery().age(30, 50).emailLike("%@TEST.com")
+                .sortBy(UserQuery.SortField.AGE, true).limit(1);
+        List<User> first = userDao.search(query);
+        List<User> second = userDao.search(query.after(first.get(0)));
+        List<User> third = userDao.search(query.after(second.get(0)));
+
+        // при равном возрасте порядок по id тоже убывающий
+        assertEquals("Carl", first.get(0).getName());
+        assertEquals("Bob", second.get(0).getName());
+        assertTrue(third.isEmpty());
+    }
+
+    @Test
+    void search_byCreatedAtRange_shouldUseHalfOpenInterval() {
+        OffsetDateTime day = OffsetDateTime.of(2024, 1, 10, 0, 0, 0, 0, ZoneOffset.UTC);
+        userDao.create(new User("Old", "old@test.com", 30, day.minusDays(1)));
+        userDao.create(new User("Start", "start@test.com", 30, day));
+        userDao.create(new User("Next", "next@test.com", 30, day.plusDays(1)));
+
+        List<User> found = userDao.search(new UserQuery().createdBetween(day, day.plusDays(1)).nameLike("S%"));
+
+        assertEquals(1, found.size());
+        assertEquals("Start", found.get(0).getName());
+    }
+
+    @Test
+    void aggregates_shouldGroupInDatabase() {
+        OffsetDateTime monday = OffsetDateTime.of(2024, 1, 8, 10, 0, 0, 0, ZoneOffset.UTC);
+        userDao.create(new User("Ann", "ann@test.com", 21, monday));
+        userDao.create(new User("Bob", "bob@test.com", 29, monday.plusDays(2)));
+        userDao.create(new User("Carl", "carl@test.com", 35, monday.plusDays(7)));
+
+        assertEquals(3, userDao.count());
+        assertEquals(Map.of(20, 2L, 30, 1L), userDao.ageHistogram(10));
+        assertEquals(Map.of(LocalDate.of(2024, 1, 8), 2L, LocalDate.of(2024, 1, 15), 1L), userDao.signupsPer(TimeBucket.WEEK));
+        assertEquals(3, userDao.signupsPer(TimeBucket.DAY).size());
+    }
+
+    @Test
+    void findView_shouldReturnProjectionsWithoutEntities() {
+        User first = new User("Ann", "ann@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        User second = new User("Bob", "bob@test.com", 40, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(first);
+        userDao.create(second);
+
+        UserView view = userDao.findViewById(second.getId());
+        List<UserView> page = userDao.findViewPage(first.getId(), 10);
+
+        assertEquals("Bob", view.getName());
+        assertEquals(second.getVersion(), view.getVersion());
+        assertEquals(List.of(view), page);
+        assertNull(userDao.findViewById(-1));
+    }
+
     @Test
     void update_shouldModifyExistingEntity() {
         User user = new User("Old", "old@test.com", 46, OffsetDateTime.now(ZoneOffset.UTC));
@@ -88,6 +317,96 @@ class UserDaoImplTest {
         assertEquals("New", updated.getName());
     }
 
+    @Test
+    void updateFields_shouldChangeOnlyGivenColumnsAndBumpVersion() {
+        User user = new User("Old", "old@test.com", 46, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(user);
+
+        User updated = userDao.updateFields(user.getId(), null, "New", null, null);
+
+        assertEquals("New", updated.getName());
+        assertEquals("old@test.com", updated.getEmail());
+        assertEquals(46, updated.getAge());
+        assertEquals(user.getVersion() + 1, updated.getVersion());
+    }
+
+    @Test
+    void updateFields_staleVersion_shouldThrowOptimisticLockException() {
+        User user = new User("Old", "old@test.com", 46, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(user);
+        userDao.updateFields(user.getId(), user.getVersion(), "First", null, null);
+
+        assertThrows(OptimisticLockException.class,
+                () -> userDao.updateFields(user.getId(), user.getVersion(), "Second", null, null));
+        assertEquals("First", userDao.findById(user.getId()).getName());
+    }
+
+    @Test
+    void updateFields_missingUser_shouldReturnNull() {
+        assertNull(userDao.updateFields(-1, 0, "New", null, null));
+    }
+
+    @Test
+    void updateWhere_shouldChangeMatchingRowsAndSkipUnchanged() {
+        User young = new User("Young", "young@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC));
+        User same = new User("Same", "same@test.com", 40, OffsetDateTime.now(ZoneOffset.UTC));
+        User other = new User("Other", "other@test.com", 60, OffsetDateTime.now(ZoneOffset.UTC));
+        List.of(young, same, other).forEach(userDao::create);
+
+        int updated = userDao.updateWhere(new UserQuery().age(null, 50), null, 40);
+
+        assertEquals(1, updated);
+        User changed = userDao.findById(young.getId());
+        assertEquals(40, changed.getAge());
+        assertEquals(young.getVersion() + 1, changed.getVersion());
+        assertEquals(same.getVersion(), userDao.findById(same.getId()).getVersion());
+        assertEquals(60, userDao.findById(other.getId()).getAge());
+    }
+
+    @Test
+    void deleteByIds_shouldDeleteInChunksAndCountRows() {
+        User first = new User("D1", "d1@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        User second = new User("D2", "d2@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        User kept = new User("D3", "d3@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        List.of(first, second, kept).forEach(userDao::create);
+        // больше одного IN-списка: id пользователей попадают в разные пакеты
+        int[] ids = new int[2500];
+        for (int i = 0; i < ids.length; i++) ids[i] = -i;
+        ids[10] = first.getId();
+        ids[2400] = second.getId();
+
+        int deleted = userDao.deleteByIds(ids);
+
+        assertEquals(2, deleted);
+        assertNull(userDao.findById(first.getId()));
+        assertNull(userDao.findById(second.getId()));
+        assertNotNull(userDao.findById(kept.getId()));
+    }
+
+    @Test
+    void deleteWhere_shouldDeleteRowsMatchingFilters() {
+        userDao.create(new User("Temp", "temp1@spam.test", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        userDao.create(new User("Temp", "temp2@spam.test", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        userDao.create(new User("Real", "real@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+
+        int deleted = userDao.deleteWhere(new UserQuery().emailLike("%@spam.test"));
+
+        assertEquals(2, deleted);
+        assertEquals(1, userDao.count());
+    }
+
+    @Test
+    void deleteById_shouldRemoveAndReturnRow() {
+        User user = new User("Del", "del@test.com", 27, OffsetDateTime.now(ZoneOffset.UTC));
+        userDao.create(user);
+
+        User deleted = userDao.deleteById(user.getId());
+
+        assertEquals("del@test.com", deleted.getEmail());
+        assertNull(userDao.findById(user.getId()));
+        assertNull(userDao.deleteById(user.getId()));
+    }
+
     @Test
     void delete_shouldRemoveEntity() {
         User user = new User("Del", "del@test.com", 27, OffsetDateTime.now(ZoneOffset.UTC));
@@ -97,4 +416,18 @@ class UserDaoImplTest {
         User deleted = userDao.findById(user.getId());
         assertNull(deleted);
     }
-}
\ No newline at end of file
+
+    @Test
+    void ping_shouldReportReachableDatabase() {
+        assertTrue(((UserDaoImpl) userDao).ping());
+    }
+
+    // hibernate.jdbc.batch_size из hibernate.properties должен доходить до фабрики: без метаданных JDBC
+    // Hibernate 5.4 считает, что драйвер не умеет пакеты, и выключает их
+    @Test
+    void sessionFactory_shouldKeepConfiguredJdbcBatchSize() {
+        int configured = Integer.parseInt(new Configuration().getProperties().getProperty("hibernate.jdbc.batch_size"));
+
+        assertEquals(configured, sessionFactory.getSessionFactoryOptions().getJdbcBatchSize());
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.load;
+
+import org.example.dao.InMemoryUserDao;
+import org.example.model.User;
+import org.example.service.ForwardingUserService;
+import org.example.service.UserService;
+import org.example.service.UserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.validation.Validator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LoadGeneratorTest {
+    private InMemoryUserDao userDao;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userDao = new InMemoryUserDao(4);
+        for (int i = 0; i < 100; i++) {
+            userDao.create(new User("Seed" + i, "seed" + i + "@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC)));
+        }
+        userService = new UserServiceImpl(userDao, mock(Validator.class));
+    }
+
+    @Test
+    void run_shouldKeepTargetRateAndReportEachOperation() {
+        // Arrange
+        LoadProfile profile = new LoadProfile(4, 400, Duration.ZERO, Duration.ofSeconds(1),
+                LoadProfile.parseMix("create:30,findById:40,findAll:1,update:20,delete:9"), null);
+
+        // Act
+        LoadReport report = new LoadGenerator(userService, profile).run();
+
+        // Assert
+        long total = report.getTotal().getCount();
+        assertTrue(total >= 360 && total <= 400, "выполнено операций: " + total);
+        assertEquals(0, report.getMissed());
+        assertFalse(report.isSaturated(), report.render());
+        assertEquals(profile.getMix().keySet(), report.getOperations().keySet());
+        assertEquals(0, report.getOperations().get(LoadOperation.CREATE).getErrors());
+        assertEquals(0, report.getOperations().get(LoadOperation.FIND_BY_ID).getErrors());
+        assertTrue(report.render().contains("findById"));
+    }
+
+    @Test
+    void run_slowService_shouldCountQueueingDelayAndReportSaturation() {
+        // Arrange
+        UserService slow = new ForwardingUserService(userService) {
+            @Override
+            public User findById(int id) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findById(id);
+            }
+        };
+        LoadProfile profile = new LoadProfile(1, 100, Duration.ZERO, Duration.ofSeconds(1),
+                LoadProfile.parseMix("findById:1"), null);
+
+        // Act
+        LoadReport report = new LoadGenerator(slow, profile).run();
+
+        // Assert
+        LoadReport.OperationResult findById = report.getOperations().get(LoadOperation.FIND_BY_ID);
+        assertTrue(report.isSaturated());
+        assertTrue(report.getMissed() > 50, "не отправлено: " + report.getMissed());
+        // время отклика включает ожидание в очереди клиента, время обслуживания - нет
+        assertTrue(findById.getResponse().getMaxValue() > 5 * findById.getService().getMaxValue(), report.render());
+    }
+
+    @Test
+    void writeCsv_shouldWriteRowPerOperationAndTotal(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path csv = dir.resolve("load.csv");
+        LoadProfile profile = LoadProfile.parse(new String[]{"load", "--clients=2", "--rate=100", "--warmup=0",
+                "--duration=1", "--mix=findById:3,findAll:1", "--csv=" + csv}, 1);
+
+        // Act
+        new LoadGenerator(userService, profile).run().writeCsv(profile.getCsv());
+
+        // Assert
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("operation,count,errors,throughput_per_s,p50_ms"));
+        assertTrue(lines.get(1).startsWith("findById,"));
+        assertTrue(lines.get(3).startsWith("total,"));
+    }
+
+    @Test
+    void parse_invalidArguments_shouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(new String[]{"load", "--mix=select:1"}, 1));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(new String[]{"load", "--mix=create:0"}, 1));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(new String[]{"load", "--rate=fast"}, 1));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(new String[]{"load", "--threads=4"}, 1));
+    }
+}
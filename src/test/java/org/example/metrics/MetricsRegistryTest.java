@@ -0,0 +1,90 @@
+package org.example.metrics;
+
+import org.example.dao.UserDao;
+import org.example.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsRegistryTest {
+    @Mock
+    private UserDao userDao;
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void record_shouldComputePercentilesInMicros() {
+        // Arrange
+        for (int i = 1; i <= 100; i++) {
+            registry.record("op", i * 1_000L, i == 100);
+        }
+
+        // Act
+        OperationSnapshot snapshot = registry.snapshot().get(0);
+
+        // Assert
+        assertEquals("op", snapshot.getName());
+        assertEquals(100, snapshot.getCalls());
+        assertEquals(1, snapshot.getErrors());
+        assertEquals(50, snapshot.getP50());
+        assertEquals(99, snapshot.getP99());
+        assertEquals(100, snapshot.getMax());
+        assertEquals(50.5, snapshot.getMean(), 0.1);
+    }
+
+    @Test
+    void time_failedOperation_shouldCountErrorAndRethrow() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> registry.time("op", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        // Assert
+        OperationSnapshot snapshot = registry.snapshot().get(0);
+        assertEquals(1, snapshot.getCalls());
+        assertEquals(1, snapshot.getErrors());
+    }
+
+    @Test
+    void instrumentedDao_shouldDelegateAndRecordPerMethod() {
+        // Arrange
+        User user = new User();
+        when(userDao.findById(1)).thenReturn(user);
+        InstrumentedUserDao dao = new InstrumentedUserDao(userDao, registry);
+
+        // Act
+        User found = dao.findById(1);
+        dao.findById(1);
+        dao.delete(user);
+
+        // Assert
+        assertSame(user, found);
+        verify(userDao).delete(user);
+        List<OperationSnapshot> snapshot = registry.snapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("dao.delete", snapshot.get(0).getName());
+        assertEquals("dao.findById", snapshot.get(1).getName());
+        assertEquals(2, snapshot.get(1).getCalls());
+    }
+
+    @Test
+    void format_shouldListOperationsAndCounters() {
+        // Arrange
+        registry.record("dao.findById", 5_000, false);
+        registry.counter("cache.hits").add(3);
+
+        // Act
+        String text = registry.format();
+
+        // Assert
+        assertTrue(text.contains("dao.findById"));
+        assertTrue(text.contains("cache.hits"));
+    }
+}
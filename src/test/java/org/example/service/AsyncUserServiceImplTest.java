@@ -0,0 +1,92 @@
+package org.example.service;
+
+import org.example.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncUserServiceImplTest {
+    @Mock
+    private UserService userService;
+
+    private AsyncUserServiceImpl asyncService;
+
+    @AfterEach
+    void tearDown() {
+        if (asyncService != null) asyncService.close();
+    }
+
+    @Test
+    void findById_shouldCompleteWithServiceResult() {
+        // Arrange
+        asyncService = new AsyncUserServiceImpl(userService, 2);
+        User user = new User("Alice", "alice@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        when(userService.findById(1)).thenReturn(user);
+
+        // Act
+        User result = asyncService.findById(1).join();
+
+        // Assert
+        assertSame(user, result);
+    }
+
+    @Test
+    void create_serviceFailure_shouldCompleteExceptionally() {
+        // Arrange
+        asyncService = new AsyncUserServiceImpl(userService, 2);
+        when(userService.create("Bob", "bad", 25)).thenThrow(new IllegalArgumentException("Ошибка валидации"));
+
+        // Act
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> asyncService.create("Bob", "bad", 25).join());
+
+        // Assert
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+    }
+
+    @Test
+    void operations_shouldNotExceedConcurrencyLimit() throws Exception {
+        // Arrange
+        int limit = 3;
+        asyncService = new AsyncUserServiceImpl(userService, Executors.newFixedThreadPool(16), limit);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch saturated = new CountDownLatch(limit);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.delete(anyInt())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            saturated.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            inFlight.decrementAndGet();
+            return null;
+        });
+
+        // Act
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) futures.add(asyncService.delete(i));
+        assertTrue(saturated.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(limit, maxInFlight.get());
+        verify(userService, times(12)).delete(anyInt());
+    }
+}
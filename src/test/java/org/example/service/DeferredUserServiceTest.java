@@ -0,0 +1,56 @@
+package org.example.service;
+
+import org.example.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeferredUserServiceTest {
+    @Mock
+    private UserService userService;
+
+    @Test
+    void firstCall_shouldWaitForServiceAndNotifyOnce() {
+        // Arrange
+        CompletableFuture<UserService> target = new CompletableFuture<>();
+        AtomicInteger firstUse = new AtomicInteger();
+        DeferredUserService deferred = new DeferredUserService(target, firstUse::incrementAndGet);
+        User user = new User("Alice", "alice@test.com", 30, OffsetDateTime.now(ZoneOffset.UTC));
+        when(userService.findById(1)).thenReturn(user);
+        CompletableFuture<User> pending = CompletableFuture.supplyAsync(() -> deferred.findById(1));
+
+        // Act
+        target.complete(userService);
+
+        // Assert
+        assertSame(user, pending.join());
+        deferred.findById(1);
+        assertEquals(1, firstUse.get());
+        verify(userService, times(2)).findById(1);
+    }
+
+    @Test
+    void failedBootstrap_shouldRethrowCause() {
+        // Arrange
+        CompletableFuture<UserService> target = CompletableFuture.failedFuture(new IllegalStateException("БД недоступна"));
+        AtomicInteger firstUse = new AtomicInteger();
+        DeferredUserService deferred = new DeferredUserService(target, firstUse::incrementAndGet);
+
+        // Act
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> deferred.count());
+
+        // Assert
+        assertEquals("БД недоступна", ex.getMessage());
+        assertEquals(0, firstUse.get());
+    }
+}
@@ -1,7 +1,12 @@
 package org.example.service;
 
+import org.example.dao.BatchResult;
+import org.example.dao.TimeBucket;
+import org.example.dao.UpsertResult;
 import org.example.dao.UserDao;
+import org.example.dao.UserQuery;
 import org.example.model.User;
+import org.example.model.UserView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,17 +14,24 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.persistence.OptimisticLockException;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 import javax.validation.Path;
@@ -75,6 +87,76 @@ class UserServiceImplTest {
         assertTrue(ex.getMessage().contains("email: некорректный email"));
     }
 
+    @Test
+    void createAll_validUsers_shouldSetCreatedAtAndInvokeDao() {
+        // Arrange
+        List<User> users = List.of(
+                new User("Alice", "alice@test.com", 20, null),
+                new User("Bob", "bob@test.com", 30, null)
+        );
+        BatchResult batchResult = new BatchResult();
+        when(validator.validate(any(User.class))).thenReturn(Collections.emptySet());
+        when(userDao.createAll(users)).thenReturn(batchResult);
+
+        // Act
+        BatchResult result = userService.createAll(users);
+
+        // Assert
+        assertSame(batchResult, result);
+        users.forEach(u -> assertNotNull(u.getCreatedAt(), "createdAt should not be null"));
+    }
+
+    @Test
+    void createAll_invalidUser_shouldThrowExceptionWithoutInsert() {
+        // Arrange
+        User valid = new User("Alice", "alice@test.com", 20, null);
+        User invalid = new User("Bob", "Bob-test", 30, null);
+        Set<ConstraintViolation<User>> errors = mockViolations("email", "некорректный email");
+        when(validator.validate(valid)).thenReturn(Collections.emptySet());
+        when(validator.validate(invalid)).thenReturn(errors);
+
+        // Act
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> userService.createAll(List.of(valid, invalid))
+        );
+
+        // Assert
+        assertTrue(ex.getMessage().contains("[1] email: некорректный email"));
+        verify(userDao, never()).createAll(any());
+    }
+
+    @Test
+    void upsertByEmail_shouldNormalizeEmailAndReturnStoredRow() {
+        // Arrange
+        User stored = new User("Alice", "alice@test.com", 31, OffsetDateTime.now(ZoneOffset.UTC));
+        UpsertResult result = mock(UpsertResult.class);
+        when(result.getUsers()).thenReturn(List.of(stored));
+        when(validator.validate(any(User.class))).thenReturn(Collections.emptySet());
+        when(userDao.upsertByEmail(argThat(users -> users.size() == 1
+                && "alice@test.com".equals(users.iterator().next().getEmail())))).thenReturn(result);
+
+        // Act
+        User user = userService.upsertByEmail("Alice", " Alice@Test.com", 31);
+
+        // Assert
+        assertSame(stored, user);
+    }
+
+    @Test
+    void upsertAllByEmail_invalidUser_shouldThrowExceptionWithoutWrite() {
+        // Arrange
+        User invalid = new User("B", "bob@test.com", 30, null);
+        Set<ConstraintViolation<User>> errors = mockViolations("name", "слишком короткое имя");
+        when(validator.validate(invalid)).thenReturn(errors);
+
+        // Act
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> userService.upsertAllByEmail(List.of(invalid)));
+
+        // Assert
+        assertTrue(ex.getMessage().contains("[0] name: слишком короткое имя"));
+        verify(userDao, never()).upsertByEmail(any());
+    }
 
     @Test
     void findAll_shouldReturnListFromDao() {
@@ -92,6 +174,81 @@ class UserServiceImplTest {
         assertEquals(users, result);
     }
 
+    @Test
+    void findPage_shouldDelegateToDao() {
+        // Arrange
+        User user = new User("Alice", "Alice@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC));
+        when(userDao.findPage(10, 5)).thenReturn(List.of(user));
+
+        // Act
+        List<User> result = userService.findPage(10, 5);
+
+        // Assert
+        assertEquals(List.of(user), result);
+    }
+
+    @Test
+    void findPage_nonPositiveLimit_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.findPage(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> userService.findViewPage(0, 0));
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void findViewPage_shouldDelegateToDao() {
+        // Arrange
+        UserView view = new UserView(11, "Alice", "alice@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC), 0);
+        when(userDao.findViewPage(10, 5)).thenReturn(List.of(view));
+
+        // Act
+        List<UserView> result = userService.findViewPage(10, 5);
+
+        // Assert
+        assertEquals(List.of(view), result);
+    }
+
+    @Test
+    void search_shouldDelegateQueryToDao() {
+        // Arrange
+        UserQuery query = new UserQuery().age(18, 30).nameLike("Al%");
+        User user = new User("Alice", "alice@test.com", 20, OffsetDateTime.now(ZoneOffset.UTC));
+        when(userDao.search(query)).thenReturn(List.of(user));
+
+        // Act
+        List<User> result = userService.search(query);
+
+        // Assert
+        assertEquals(List.of(user), result);
+    }
+
+    @Test
+    void search_invalidCriteria_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.search(null));
+        assertThrows(IllegalArgumentException.class, () -> new UserQuery().age(40, 30));
+        assertThrows(IllegalArgumentException.class, () -> new UserQuery().limit(0));
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void ageHistogram_nonPositiveWidth_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.ageHistogram(0));
+        assertThrows(IllegalArgumentException.class, () -> userService.signupsPer(null));
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void signupsPer_shouldDelegateToDao() {
+        // Arrange
+        SortedMap<LocalDate, Long> signups = new TreeMap<>(Map.of(LocalDate.of(2024, 1, 8), 2L));
+        when(userDao.signupsPer(TimeBucket.WEEK)).thenReturn(signups);
+
+        // Act
+        SortedMap<LocalDate, Long> result = userService.signupsPer(TimeBucket.WEEK);
+
+        // Assert
+        assertEquals(signups, result);
+    }
+
     @Test
     void findById_existingId_shouldReturnUser() {
         // Arrange
@@ -105,14 +262,98 @@ class UserServiceImplTest {
         assertEquals(user, result);
     }
 
+    @Test
+    void findAllByIds_shouldDelegateToDao() {
+        // Arrange
+        List<User> users = List.of(new User("Alice", "alice@test.com", 22, OffsetDateTime.now(ZoneOffset.UTC)));
+        when(userDao.findAllByIds(new int[]{3, 1})).thenReturn(users);
+
+        // Act
+        List<User> result = userService.findAllByIds(new int[]{3, 1});
+
+        // Assert
+        assertEquals(users, result);
+    }
+
+    @Test
+    void findAllByIds_emptyOrNull_shouldNotQueryDao() {
+        // Act & Assert
+        assertTrue(userService.findAllByIds(new int[0]).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> userService.findAllByIds(null));
+        verify(userDao, never()).findAllByIds(any());
+    }
+
+    @Test
+    void updateWhere_shouldValidateChangesAndDelegate() {
+        // Arrange
+        UserQuery criteria = new UserQuery().age(65, null);
+        when(userDao.updateWhere(criteria, "Retired", null)).thenReturn(12);
+
+        // Act
+        int updated = userService.updateWhere(criteria, "Retired", null);
+
+        // Assert
+        assertEquals(12, updated);
+        verify(validator).validateValue(User.class, "name", "Retired");
+    }
+
+    @Test
+    void updateWhereAndDeleteWhere_withoutFilters_shouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userService.updateWhere(new UserQuery(), "Name", null));
+        assertThrows(IllegalArgumentException.class, () -> userService.deleteWhere(new UserQuery().limit(5)));
+        assertThrows(IllegalArgumentException.class, () -> userService.updateWhere(new UserQuery().age(1, 2), null, null));
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void deleteByIds_shouldReturnDeletedCount() {
+        // Arrange
+        when(userDao.deleteByIds(new int[]{1, 2, 3})).thenReturn(2);
+
+        // Act & Assert
+        assertEquals(2, userService.deleteByIds(new int[]{1, 2, 3}));
+        assertEquals(0, userService.deleteByIds(new int[0]));
+        verify(userDao, times(1)).deleteByIds(any());
+    }
+
+    @Test
+    void create_mixedCaseEmail_shouldBeNormalized() {
+        // Arrange
+        when(validator.validate(any(User.class))).thenReturn(Collections.emptySet());
+
+        // Act
+        User result = userService.create("Alice", " Alice@Example.COM", 30);
+
+        // Assert
+        assertEquals("alice@example.com", result.getEmail());
+    }
+
+    @Test
+    void findByEmail_shouldLookupNormalizedEmail() {
+        // Arrange
+        User user = new User("Alice", "alice@test.com", 22, OffsetDateTime.now(ZoneOffset.UTC));
+        when(userDao.findByEmail("alice@test.com")).thenReturn(user);
+
+        // Act
+        User result = userService.findByEmail("Alice@Test.com");
+
+        // Assert
+        assertEquals(user, result);
+    }
+
+    @Test
+    void findByNamePrefix_emptyPrefix_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> userService.findByNamePrefix("", 0, 10));
+        verifyNoInteractions(userDao);
+    }
+
     @Test
     void update_existingUser_shouldModifyAndReturn() {
         // Arrange
-        User existing = new User("Alice", "Alice@test.com", 28, OffsetDateTime.now(ZoneOffset.UTC));
-        existing.setId(2);
-        when(userDao.findById(2)).thenReturn(existing);
-        when(validator.validate(existing)).thenReturn(Collections.emptySet());
-        doNothing().when(userDao).update(existing);
+        User updatedRow = new User("Bob", "Alice@test.com", 29, OffsetDateTime.now(ZoneOffset.UTC));
+        updatedRow.setId(2);
+        when(userDao.updateFields(2, null, "Bob", null, 29)).thenReturn(updatedRow);
 
         // Act
         User updated = userService.update(2, "Bob", null, 29);
@@ -121,13 +362,84 @@ class UserServiceImplTest {
         assertEquals("Bob", updated.getName());
         assertEquals("Alice@test.com", updated.getEmail());
         assertEquals(29, updated.getAge());
+        verify(userDao, never()).findById(anyInt());
     }
 
     @Test
-    void update_nonExistingUser_shouldThrowException() {
+    void update_withExpectedVersion_shouldPassVersionToDao() {
+        // Arrange
+        User updatedRow = new User("Bob", "Alice@test.com", 28, OffsetDateTime.now(ZoneOffset.UTC));
+        updatedRow.setVersion(4);
+        when(userDao.updateFields(2, 3, "Bob", null, null)).thenReturn(updatedRow);
+
+        // Act
+        User updated = userService.update(2, 3, "Bob", null, null);
+
+        // Assert
+        assertEquals(4, updated.getVersion());
+    }
+
+    @Test
+    void update_concurrentModification_shouldPropagateOptimisticLockException() {
+        // Arrange
+        when(userDao.updateFields(2, 3, "Bob", null, null)).thenThrow(new OptimisticLockException("конфликт"));
+
+        // Act & Assert
+        assertThrows(OptimisticLockException.class, () -> userService.update(2, 3, "Bob", null, null));
+    }
+
+    @Test
+    void modify_conflict_shouldReloadReapplyAndRetry() {
         // Arrange
+        UserServiceImpl service = new UserServiceImpl(userDao, validator, new RetryPolicy(3, Duration.ZERO, Duration.ZERO));
+        User v1 = user(2, "Bob", 30, 1);
+        User v2 = user(2, "Bob", 31, 2);
+        User saved = user(2, "Bob", 32, 3);
+        when(userDao.findById(2)).thenReturn(v1, v2);
+        when(userDao.updateFields(2, 1, null, null, 31)).thenThrow(new OptimisticLockException("конфликт"));
+        when(userDao.updateFields(2, 2, null, null, 32)).thenReturn(saved);
+
+        // Act
+        User result = service.modify(2, u -> u.setAge(u.getAge() + 1));
+
+        // Assert
+        assertSame(saved, result);
+        assertEquals(1, service.contentionStats().getConflicts());
+        assertEquals(0, service.contentionStats().getExhausted());
+    }
+
+    @Test
+    void modify_persistentConflict_shouldGiveUpAfterMaxAttempts() {
+        // Arrange
+        UserServiceImpl service = new UserServiceImpl(userDao, validator, new RetryPolicy(3, Duration.ZERO, Duration.ZERO));
+        when(userDao.findById(2)).thenReturn(user(2, "Bob", 30, 1));
+        when(userDao.updateFields(2, 1, "Robert", null, null)).thenThrow(new OptimisticLockException("конфликт"));
+
+        // Act
+        assertThrows(OptimisticLockException.class, () -> service.modify(2, u -> u.setName("Robert")));
+
+        // Assert
+        verify(userDao, times(3)).updateFields(2, 1, "Robert", null, null);
+        assertEquals(3, service.contentionStats().getConflicts());
+        assertEquals(1, service.contentionStats().getExhausted());
+    }
+
+    @Test
+    void modify_missingUser_shouldThrowException() {
+        // Arrange
+        UserServiceImpl service = new UserServiceImpl(userDao, validator, RetryPolicy.DEFAULT);
         when(userDao.findById(99)).thenReturn(null);
 
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> service.modify(99, u -> u.setAge(1)));
+        verify(userDao, never()).updateFields(anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void update_nonExistingUser_shouldThrowException() {
+        // Arrange
+        when(userDao.updateFields(99, null, "Alice", "alice@test.com", 40)).thenReturn(null);
+
         // Act & Assert
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> userService.update(99, "Alice", "Alice@test.com", 40)
@@ -138,40 +450,37 @@ class UserServiceImplTest {
     @Test
     void update_invalidUser_shouldThrowException() {
         // Arrange
-        User existing = new User("Alice", "Alice@test.com", 28, OffsetDateTime.now(ZoneOffset.UTC));
-        existing.setId(2);
-        when(userDao.findById(2)).thenReturn(existing);
-        // возвращать из validate() ошибку
+        // возвращать из validateValue() ошибку для age
         Set<ConstraintViolation<User>> errors = mockViolations("age", "некорректный age");
-        when(validator.validate(any(User.class))).thenReturn(errors);
+        when(validator.validateValue(User.class, "age", 190)).thenReturn(errors);
         // Act
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                () -> userService.update(2, "Bob", null, 190)
+                () -> userService.update(2, null, null, 190)
         );
         // Assert
         assertTrue(ex.getMessage().contains("Ошибка валидации"));
         assertTrue(ex.getMessage().contains("age: некорректный age"));
-
+        verify(userDao, never()).updateFields(anyInt(), any(), any(), any(), any());
     }
 
     @Test
     void delete_existingUser_shouldInvokeDaoAndReturnUser() {
         // Arrange
         User toDelete = new User("Alice", "Alice@test.com", 35, OffsetDateTime.now(ZoneOffset.UTC));
-        when(userDao.findById(3)).thenReturn(toDelete);
-        doNothing().when(userDao).delete(toDelete);
+        when(userDao.deleteById(3)).thenReturn(toDelete);
 
         // Act
         User deleted = userService.delete(3);
 
         // Assert
         assertEquals(toDelete, deleted);
+        verify(userDao, never()).findById(anyInt());
     }
 
     @Test
     void delete_nonExistingUser_shouldReturnNull() {
         // Arrange
-        when(userDao.findById(100)).thenReturn(null);
+        when(userDao.deleteById(100)).thenReturn(null);
 
         // Act
         User deleted = userService.delete(100);
@@ -197,4 +506,11 @@ class UserServiceImplTest {
         errors.add(violation);
         return errors;
     }
-}
\ No newline at end of file
+
+    private static User user(int id, String name, int age, int version) {
+        User user = new User(name, name.toLowerCase() + "@test.com", age, OffsetDateTime.now(ZoneOffset.UTC));
+        user.setId(id);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,239 @@
+package org.example.service;
+
+import org.example.dao.BatchResult;
+import org.example.dao.UserDao;
+import org.example.model.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Path;
+import javax.validation.Validator;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindUserServiceTest {
+    @Mock
+    private UserService userService;
+    @Mock
+    private UserDao userDao;
+    @Mock
+    private Validator validator;
+
+    private WriteBehindUserService writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind != null) writeBehind.close();
+    }
+
+    @Test
+    void createAsync_burst_shouldBeCommittedAsOneGroup() {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 10, 3, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        when(userDao.createAll(any())).thenAnswer(inv -> assignIds(inv.getArgument(0)));
+
+        // Act
+        CompletableFuture<User> a = writeBehind.createAsync("Alice", "Alice@Test.com", 20);
+        CompletableFuture<User> b = writeBehind.createAsync("Bob", "bob@test.com", 30);
+        CompletableFuture<User> c = writeBehind.createAsync("Carl", "carl@test.com", 40);
+
+        // Assert
+        assertEquals("alice@test.com", a.join().getEmail());
+        assertTrue(b.join().getId() > 0);
+        assertTrue(c.join().getId() > 0);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<User>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(userDao).createAll(captor.capture());
+        assertEquals(3, captor.getValue().size());
+        verify(userDao, never()).create(any());
+    }
+
+    @Test
+    void createAsync_invalidUser_shouldThrowBeforeQueueing() {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 10, 3, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<User> violation = mock(ConstraintViolation.class);
+        Path path = mock(Path.class);
+        doReturn("email").when(path).toString();
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("некорректный email");
+        when(validator.validate(any(User.class))).thenReturn(Set.of(violation));
+
+        // Act
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> writeBehind.createAsync("Bob", "Bob-test", 25));
+
+        // Assert
+        assertTrue(ex.getMessage().contains("email: некорректный email"));
+        assertEquals(0, writeBehind.pending());
+        verifyNoInteractions(userDao);
+    }
+
+    @Test
+    void create_failedGroup_shouldRetryRowsAndFailOnlyOffender() {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 10, 2, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        BatchResult result = mock(BatchResult.class);
+        BatchResult.Failure failure = mock(BatchResult.Failure.class);
+        when(userDao.createAll(any())).thenAnswer(inv -> {
+            List<User> users = List.copyOf(inv.<Collection<User>>getArgument(0));
+            when(failure.getUsers()).thenReturn(users);
+            when(failure.getCause()).thenReturn(new ConstraintViolationException("duplicate key",
+                    new SQLException("duplicate key", "23505"), "users_email_key"));
+            when(result.getFailures()).thenReturn(List.of(failure));
+            return result;
+        });
+        doAnswer(inv -> {
+            if ("Dup".equals(inv.<User>getArgument(0).getName())) throw new IllegalStateException("duplicate key");
+            return null;
+        }).when(userDao).create(any());
+
+        // Act
+        CompletableFuture<User> ok = writeBehind.createAsync("Alice", "alice@test.com", 20);
+        CompletableFuture<User> dup = writeBehind.createAsync("Dup", "alice@test.com", 20);
+
+        // Assert
+        assertEquals("Alice", ok.join().getName());
+        CompletionException ex = assertThrows(CompletionException.class, dup::join);
+        assertEquals("duplicate key", ex.getCause().getMessage());
+        verify(userDao, times(2)).create(any());
+    }
+
+    @Test
+    void create_groupFailedWithoutConstraintViolation_shouldFailWholeBatchWithoutRetry() {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 10, 2, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        BatchResult result = mock(BatchResult.class);
+        BatchResult.Failure failure = mock(BatchResult.Failure.class);
+        PersistenceException down = new PersistenceException("Connection refused");
+        when(userDao.createAll(any())).thenAnswer(inv -> {
+            List<User> users = List.copyOf(inv.<Collection<User>>getArgument(0));
+            when(failure.getUsers()).thenReturn(users);
+            when(failure.getCause()).thenReturn(down);
+            when(result.getFailures()).thenReturn(List.of(failure));
+            return result;
+        });
+
+        // Act
+        CompletableFuture<User> a = writeBehind.createAsync("Alice", "alice@test.com", 20);
+        CompletableFuture<User> b = writeBehind.createAsync("Bob", "bob@test.com", 30);
+
+        // Assert
+        assertSame(down, assertThrows(CompletionException.class, a::join).getCause());
+        assertSame(down, assertThrows(CompletionException.class, b::join).getCause());
+        verify(userDao, never()).create(any());
+    }
+
+    @Test
+    void createAsync_queueFull_shouldRejectAfterTimeout() throws Exception {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 1, 1, Duration.ZERO, Duration.ofMillis(20));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userDao.createAll(any())).thenAnswer(inv -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return assignIds(inv.getArgument(0));
+        });
+        CompletableFuture<User> first = writeBehind.createAsync("Alice", "alice@test.com", 20);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<User> queued = writeBehind.createAsync("Bob", "bob@test.com", 30);
+
+        // Act
+        CompletableFuture<User> rejected = writeBehind.createAsync("Carl", "carl@test.com", 40);
+
+        // Assert
+        CompletionException ex = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+        release.countDown();
+        assertNotNull(first.join());
+        assertNotNull(queued.join());
+    }
+
+    @Test
+    void close_shouldFlushPendingAndRejectNewCreates() {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 10, 100, Duration.ofMillis(300), Duration.ofSeconds(1));
+        when(userDao.createAll(any())).thenAnswer(inv -> assignIds(inv.getArgument(0)));
+        CompletableFuture<User> pending = writeBehind.createAsync("Alice", "alice@test.com", 20);
+
+        // Act
+        writeBehind.close();
+
+        // Assert
+        assertTrue(pending.isDone());
+        assertTrue(pending.join().getId() > 0);
+        assertThrows(IllegalStateException.class, () -> writeBehind.create("Bob", "bob@test.com", 30));
+    }
+
+    @Test
+    void close_concurrentWithCreates_shouldCompleteEveryAcceptedFuture() throws Exception {
+        // Arrange
+        writeBehind = new WriteBehindUserService(userService, userDao, validator, 10_000, 50, Duration.ofMillis(1), Duration.ofSeconds(1));
+        when(userDao.createAll(any())).thenAnswer(inv -> assignIds(inv.getArgument(0)));
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        AtomicInteger enqueued = new AtomicInteger();
+        List<Future<List<CompletableFuture<User>>>> accepted = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            accepted.add(producers.submit(() -> {
+                List<CompletableFuture<User>> futures = new ArrayList<>();
+                for (int i = 0; ; i++) {
+                    try {
+                        futures.add(writeBehind.createAsync("U" + i, "u" + producer + "-" + i + "@test.com", 20));
+                        enqueued.incrementAndGet();
+                    } catch (IllegalStateException stopped) {
+                        return futures;
+                    }
+                }
+            }));
+        }
+        while (enqueued.get() < 100) Thread.sleep(1);
+
+        // Act
+        writeBehind.close();
+
+        // Assert
+        int total = 0;
+        for (Future<List<CompletableFuture<User>>> producer : accepted) {
+            for (CompletableFuture<User> future : producer.get(5, TimeUnit.SECONDS)) {
+                assertTrue(future.isDone(), "принятая до close() строка должна быть записана");
+                total++;
+            }
+        }
+        producers.shutdownNow();
+        assertTrue(total >= 100);
+    }
+
+    private static BatchResult assignIds(Collection<User> users) {
+        int id = 1;
+        for (User user : users) user.setId(id++);
+        return new BatchResult();
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowParserTest {
+
+    @Test
+    void parseCsvLine_shouldHandleQuotesAndEmptyFields() {
+        List<String> fields = RowParser.parseCsvLine("\"Smith, John\",john@test.com,,\"say \"\"hi\"\"\"");
+
+        assertEquals(List.of("Smith, John", "john@test.com", "", "say \"hi\""), fields);
+    }
+
+    @Test
+    void parseCsvLine_unclosedQuote_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> RowParser.parseCsvLine("\"broken,1"));
+    }
+
+    @Test
+    void toCsvField_shouldQuoteAndEscape() {
+        assertEquals("\"a \"\"b\"\", c\"", RowParser.toCsvField("a \"b\", c"));
+        assertEquals(List.of("a \"b\", c"), RowParser.parseCsvLine(RowParser.toCsvField("a \"b\", c")));
+    }
+
+    @Test
+    void parseFlatJson_shouldReadStringsNumbersAndNulls() {
+        Map<String, String> values = RowParser.parseFlatJson(
+                "{\"name\": \"A\\u0042 \\\"q\\\"\", \"age\": 42, \"created_at\": null}");
+
+        assertEquals("AB \"q\"", values.get("name"));
+        assertEquals("42", values.get("age"));
+        assertTrue(values.containsKey("created_at"));
+        assertNull(values.get("created_at"));
+    }
+
+    @Test
+    void parseFlatJson_nestedOrBroken_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> RowParser.parseFlatJson("{\"a\": {\"b\": 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> RowParser.parseFlatJson("{\"a\": 1"));
+        assertThrows(IllegalArgumentException.class, () -> RowParser.parseFlatJson("{\"a\": 1} x"));
+    }
+
+    @Test
+    void dataFormat_shouldBeDetectedByExtension() {
+        assertEquals(DataFormat.CSV, DataFormat.fromFileName(Path.of("users.csv.gz")));
+        assertEquals(DataFormat.NDJSON, DataFormat.fromFileName(Path.of("users.jsonl")));
+        assertThrows(IllegalArgumentException.class, () -> DataFormat.fromFileName(Path.of("users.xml")));
+    }
+}
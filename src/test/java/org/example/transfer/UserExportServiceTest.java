@@ -0,0 +1,36 @@
+package org.example.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExportServiceTest {
+
+    @Test
+    void buildCopySql_csv_shouldSelectColumnsWithFilterAndHeader() {
+        String sql = UserExportService.buildCopySql(DataFormat.CSV, List.of("ID", " email "), "age > 30");
+
+        assertEquals("COPY (SELECT id, email FROM Users WHERE age > 30 ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)", sql);
+    }
+
+    @Test
+    void buildCopySql_ndjson_shouldWrapRowToJson() {
+        String sql = UserExportService.buildCopySql(DataFormat.NDJSON, null, null);
+
+        assertTrue(sql.startsWith("COPY (SELECT row_to_json(t) FROM (SELECT id, name, email, age, created_at FROM Users ORDER BY id) t)"));
+    }
+
+    @Test
+    void buildCopySql_unknownColumn_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> UserExportService.buildCopySql(DataFormat.CSV, List.of("password"), null));
+    }
+
+    @Test
+    void buildCopySql_multipleStatements_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> UserExportService.buildCopySql(DataFormat.CSV, null, "true; DROP TABLE Users"));
+    }
+}
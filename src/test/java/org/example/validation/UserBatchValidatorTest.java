@@ -0,0 +1,140 @@
+package org.example.validation;
+
+import org.example.model.User;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class UserBatchValidatorTest {
+    private static final OffsetDateTime NOW = OffsetDateTime.now(ZoneOffset.UTC);
+    private static final String EMAIL_ALPHABET = "aZ09.-_+@\"[]:é! ";
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUpClass() {
+        validatorFactory = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDownClass() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void validate_mixedBatch_shouldReportViolationsPerRowInOrder() {
+        // Arrange
+        UserBatchValidator batchValidator = new UserBatchValidator(validator);
+        List<User> users = List.of(
+                new User("Alice", "alice@test.com", 30, NOW),
+                new User("A", "not-an-email", 200, NOW),
+                new User("Bob", "bob@test.com", -1, NOW));
+
+        // Act
+        ValidationReport report = batchValidator.validate(users);
+
+        // Assert
+        assertTrue(batchValidator.isFastPathEnabled());
+        assertEquals(2, report.getInvalidRows());
+        assertEquals(List.of("[1] age", "[1] email", "[1] name", "[2] age"), report.getViolations().stream()
+                .map(v -> "[" + v.getRow() + "] " + v.getProperty())
+                .collect(Collectors.toList()));
+        assertEquals("Максимальное значение для возраста 150", report.getViolations().get(0).getMessage());
+    }
+
+    @Test
+    void validate_largeBatch_shouldMatchAnnotationDrivenValidator() {
+        // Arrange
+        UserBatchValidator batchValidator = new UserBatchValidator(validator);
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) users.add(randomUser(random));
+
+        // Act
+        ValidationReport report = batchValidator.validate(users);
+
+        // Assert
+        List<String> expected = new ArrayList<>();
+        for (int row = 0; row < users.size(); row++) {
+            Set<ConstraintViolation<User>> violations = validator.validate(users.get(row));
+            int current = row;
+            violations.stream()
+                    .map(v -> "[" + current + "] " + v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .forEach(expected::add);
+        }
+        List<String> actual = report.getViolations().stream().map(RowViolation::toString).collect(Collectors.toList());
+        assertEquals(expected, actual);
+        assertTrue(report.getInvalidRows() > 0 && report.getInvalidRows() < users.size());
+    }
+
+    @Test
+    void isPlainEmail_shouldNeverAcceptWhatValidatorRejects() {
+        // Arrange
+        Random random = new Random(7);
+
+        // Act & Assert
+        for (int i = 0; i < 50_000; i++) {
+            String email = randomEmail(random);
+            if (UserConstraints.isPlainEmail(email)) {
+                User user = new User("Name", email, 30, NOW);
+                assertTrue(validator.validateProperty(user, "email").stream()
+                        .noneMatch(v -> v.getMessage().equals("Некорректный email")), email);
+            }
+        }
+        assertTrue(UserConstraints.isPlainEmail("first.last+tag@sub-domain.example.com"));
+        assertFalse(UserConstraints.isPlainEmail("a..b@test.com"));
+        assertFalse(UserConstraints.isPlainEmail("a@-test.com"));
+        assertFalse(UserConstraints.isPlainEmail("a@test.com."));
+    }
+
+    @Test
+    void validate_validatorWithoutMetadata_shouldFallBackToValidator() {
+        // Arrange
+        Validator stub = mock(Validator.class);
+
+        // Act
+        UserBatchValidator batchValidator = new UserBatchValidator(stub);
+        ValidationReport report = batchValidator.validate(List.of(new User("Alice", "alice@test.com", 30, NOW)));
+
+        // Assert
+        assertFalse(batchValidator.isFastPathEnabled());
+        assertTrue(report.isValid());
+    }
+
+    private static User randomUser(Random random) {
+        String name = random.nextInt(10) == 0 ? (random.nextBoolean() ? null : "A") : "User" + random.nextInt(1000);
+        String email = random.nextInt(3) == 0 ? randomEmail(random) : "user" + random.nextInt(100_000) + "@test.com";
+        int age = random.nextInt(10) == 0 ? 140 + random.nextInt(20) : random.nextInt(100);
+        return new User(name, email, age, NOW);
+    }
+
+    private static String randomEmail(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(14);
+        for (int i = 0; i < length; i++) sb.append(EMAIL_ALPHABET.charAt(random.nextInt(EMAIL_ALPHABET.length())));
+        if (random.nextBoolean()) sb.append("@").append(random.nextBoolean() ? "test.com" : "x-y.z");
+        return sb.toString();
+    }
+}